@@ -0,0 +1,101 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.biome;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares looking up per-biome values through a HashMap against the raw-id indexed BiomeIndex.
+ *
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiomeIndexBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private Biome[] samples;
+    private Map<Biome, Object> map;
+    private BiomeIndex<Object> index;
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        List<Biome> biomes = new ArrayList<>();
+        map = new HashMap<>();
+        for (Biome biome : Registry.BIOME) {
+            biomes.add(biome);
+            map.put(biome, new Object());
+        }
+        index = BiomeIndex.of(map);
+
+        Random random = new Random(0L);
+        samples = new Biome[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = biomes.get(random.nextInt(biomes.size()));
+        }
+    }
+
+    @Benchmark
+    public void hashMap(Blackhole blackhole) {
+        for (Biome biome : samples) {
+            blackhole.consume(map.get(biome));
+        }
+    }
+
+    @Benchmark
+    public void biomeIndex(Blackhole blackhole) {
+        for (Biome biome : samples) {
+            blackhole.consume(index.get(biome));
+        }
+    }
+}
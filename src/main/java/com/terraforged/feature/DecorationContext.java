@@ -0,0 +1,127 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature;
+
+import com.terraforged.feature.biome.BiomeFeatures;
+import com.terraforged.feature.predicate.ChunkContext;
+import com.terraforged.feature.predicate.FeaturePredicate;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkRandom;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread state re-used by every chunk that FeatureDecorator decorates on that thread so that the decorate loop
+ * does not need to allocate. The center position is only used for biome lookups and must not be handed to
+ * features, which may keep it.
+ */
+public class DecorationContext {
+
+    private static final ThreadLocal<DecorationContext> CONTEXT = ThreadLocal.withInitial(DecorationContext::new);
+
+    private final ChunkRandom random = new ChunkRandom();
+    private final BlockPos.Mutable center = new BlockPos.Mutable();
+    private final ChunkContext chunk = new ChunkContext();
+
+    private int sampleCounter = 0;
+    private long[] evaluated = new long[1];
+    private long[] results = new long[1];
+
+    private DecorationContext() {
+
+    }
+
+    public ChunkRandom getRandom() {
+        return random;
+    }
+
+    public BlockPos.Mutable getCenter() {
+        return center;
+    }
+
+    public ChunkContext getChunkContext() {
+        return chunk;
+    }
+
+    /**
+     * Clear the memoized predicate results & chunk summaries of the previous chunk
+     */
+    public void begin(BiomeFeatures features, Chunk chunk, Biome biome) {
+        this.chunk.reset(chunk, biome);
+
+        int words = (features.getPredicateCount() + 63) >>> 6;
+        if (words > evaluated.length) {
+            evaluated = new long[words];
+            results = new long[words];
+        } else {
+            Arrays.fill(evaluated, 0, words, 0L);
+        }
+    }
+
+    /**
+     * Test the predicate of the feature at the given index, re-using the result of any earlier feature in the
+     * chunk that shares the same memoizable predicate
+     */
+    public boolean test(BiomeFeatures features, int index) {
+        FeaturePredicate predicate = features.getPredicate(index);
+        int id = features.getPredicateId(index);
+        if (id == BiomeFeatures.NO_ID) {
+            return predicate.test(chunk);
+        }
+
+        int word = id >>> 6;
+        long bit = 1L << id;
+        if ((evaluated[word] & bit) != 0) {
+            return (results[word] & bit) != 0;
+        }
+
+        boolean result = predicate.test(chunk);
+        evaluated[word] |= bit;
+        if (result) {
+            results[word] |= bit;
+        } else {
+            results[word] &= ~bit;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true once in every rate calls made on this thread
+     */
+    public boolean sample(int rate) {
+        if (++sampleCounter >= rate) {
+            sampleCounter = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public static DecorationContext get() {
+        return CONTEXT.get();
+    }
+}
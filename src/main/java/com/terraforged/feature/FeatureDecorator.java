@@ -25,15 +25,14 @@
 
 package com.terraforged.feature;
 
-import com.terraforged.feature.biome.BiomeFeature;
 import com.terraforged.feature.biome.BiomeFeatures;
+import com.terraforged.feature.metrics.DecorationMetrics;
 import net.minecraft.world.gen.ChunkRandom;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IWorld;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.gen.chunk.ChunkGenerator;
-import net.minecraft.world.gen.GenerationStep;
 import net.minecraft.world.ChunkRegion;
 
 public interface FeatureDecorator {
@@ -47,24 +46,40 @@ public interface FeatureDecorator {
         int blockZ = chunkZ << 4;
         Chunk chunk = region.getChunk(chunkX, chunkZ);
 
+        DecorationContext context = DecorationContext.get();
+        Biome biome = region.getBiomeAccess().getBiome(context.getCenter().set(blockX + 8, 8, blockZ + 8));
+
+        // features may keep the position they are generated at so it must not be shared between chunks
         BlockPos pos = new BlockPos(blockX, 0, blockZ);
-        Biome biome = region.getBiomeAccess().getBiome(pos.add(8, 8, 8));
 
         decorate(generator, region, chunk, biome, pos);
     }
 
     default void decorate(ChunkGenerator<?> generator, IWorld region, Chunk chunk, Biome biome, BlockPos pos) {
-        ChunkRandom random = new ChunkRandom();
+        DecorationContext context = DecorationContext.get();
+        ChunkRandom random = context.getRandom();
         long populationSeed = random.setPopulationSeed(region.getSeed(), pos.getX(), pos.getZ());
 
-        BiomeFeatures features = getFeatureManager().getFeatures(biome);
-        for (GenerationStep.Feature stage : GenerationStep.Feature.values()) {
-            int featureOrdinal = 0;
-            for (BiomeFeature feature : features.getStage(stage)) {
-                random.setDecoratorSeed(populationSeed, featureOrdinal++, stage.ordinal());
+        FeatureManager manager = getFeatureManager();
+        BiomeFeatures features = manager.getFeatures(biome);
+
+        context.begin(features, chunk, biome);
+
+        DecorationMetrics metrics = manager.getMetrics();
+        if (metrics.isEnabled() && context.sample(metrics.getSampleRate())) {
+            metrics.decorate(generator, region, chunk, biome, pos, features, context, populationSeed);
+            return;
+        }
+
+        for (int stage = 0; stage < BiomeFeatures.STAGES; stage++) {
+            int start = features.getStart(stage);
+            int end = features.getEnd(stage);
+            for (int i = start; i < end; i++) {
+                random.setDecoratorSeed(populationSeed, features.getOrdinal(i), stage);
 
-                if (feature.getPredicate().test(chunk, biome)) {
-                    feature.getFeature().generate(region, generator, random, pos);
+                if (context.test(features, i)) {
+                    features.getFeature(i).generate(region, generator, random, pos);
+                    context.getChunkContext().invalidateHeightmaps();
                 }
             }
         }
@@ -25,32 +25,43 @@
 
 package com.terraforged.feature;
 
-import com.terraforged.feature.biome.BiomeFeature;
+import com.terraforged.feature.biome.BiomeFeatureLookup;
 import com.terraforged.feature.biome.BiomeFeatures;
+import com.terraforged.feature.compiler.CompilerSettings;
+import com.terraforged.feature.compiler.DiskCache;
+import com.terraforged.feature.compiler.FeatureCompiler;
+import com.terraforged.feature.compiler.LazyFeatures;
+import com.terraforged.feature.metrics.DecorationMetrics;
 import com.terraforged.feature.modifier.FeatureModifierLoader;
 import com.terraforged.feature.modifier.FeatureModifiers;
 import com.terraforged.feature.template.TemplateManager;
+import com.terraforged.feature.template.TemplateSettings;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.world.IWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.biome.Biome;
-import net.minecraft.world.gen.GenerationStep;
-import net.minecraft.world.gen.feature.ConfiguredFeature;
+import net.minecraft.world.biome.source.BiomeSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class FeatureManager implements FeatureDecorator {
 
     public static final Logger LOG = LogManager.getLogger("FeatureManager");
     public static final Marker INIT = MarkerManager.getMarker("INIT");
 
-    private final Map<Biome, BiomeFeatures> biomes;
+    private final BiomeFeatureLookup biomes;
+    private volatile DecorationMetrics metrics = DecorationMetrics.NONE;
 
     public FeatureManager(Map<Biome, BiomeFeatures> biomes) {
+        this(BiomeFeatureLookup.of(biomes));
+    }
+
+    public FeatureManager(BiomeFeatureLookup biomes) {
         this.biomes = biomes;
     }
 
@@ -60,7 +71,43 @@ public class FeatureManager implements FeatureDecorator {
     }
 
     public BiomeFeatures getFeatures(Biome biome) {
-        return biomes.getOrDefault(biome, BiomeFeatures.NONE);
+        return biomes.getFeatures(biome);
+    }
+
+    public DecorationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Start timing the decoration of one in every sampleRate chunks, exposing the results through the returned
+     * DecorationMetrics and a JMX MBean registered under the given name
+     */
+    public synchronized DecorationMetrics enableMetrics(String name, int sampleRate) {
+        disableMetrics();
+        DecorationMetrics metrics = new DecorationMetrics(Math.max(1, sampleRate));
+        metrics.register(name);
+        this.metrics = metrics;
+        return metrics;
+    }
+
+    public synchronized void disableMetrics() {
+        metrics.unregister();
+        metrics = DecorationMetrics.NONE;
+    }
+
+    /**
+     * Compile the features of the given biomes on a background thread when running in lazy mode
+     */
+    public CompletableFuture<Void> warmUp(Iterable<Biome> biomes) {
+        return this.biomes.warmUp(biomes);
+    }
+
+    /**
+     * Compile the features of the biomes that the BiomeSource produces within the radius of the center position
+     * on a background thread when running in lazy mode
+     */
+    public CompletableFuture<Void> warmUp(BiomeSource source, BlockPos center, int radius) {
+        return warmUp(source.getBiomesInArea(center.getX(), center.getY(), center.getZ(), radius));
     }
 
     public static FeatureManager create(IWorld world) {
@@ -69,6 +116,10 @@ public class FeatureManager implements FeatureDecorator {
     }
 
     public static FeatureManager create(IWorld world, FeatureModifiers modifiers) {
+        return create(world, modifiers, CompilerSettings.DEFAULT);
+    }
+
+    public static FeatureManager create(IWorld world, FeatureModifiers modifiers, CompilerSettings settings) {
         LOG.debug(INIT, "Initializing FeatureManager");
         int predicates = modifiers.getPredicates().size();
         int replacers = modifiers.getReplacers().size();
@@ -77,13 +128,24 @@ public class FeatureManager implements FeatureDecorator {
 
         modifiers.sort();
 
-        LOG.debug(INIT, " Compiling biome feature lists");
-        Map<Biome, BiomeFeatures> biomes = new HashMap<>();
-        for (Biome biome : Registry.BIOME) {
-            BiomeFeatures features = compute(biome, modifiers);
-            biomes.put(biome, features);
+        DiskCache diskCache = DiskCache.create(settings, world, modifiers);
+        FeatureCompiler compiler = new FeatureCompiler(modifiers, settings, diskCache);
+        if (settings.isLazy()) {
+            LOG.debug(INIT, " Biome feature lists will be compiled on demand");
+            LOG.debug(INIT, " Initialization complete");
+            return new FeatureManager(new LazyFeatures(compiler));
         }
 
+        LOG.debug(INIT, " Compiling biome feature lists (parallelism: {})", settings.getParallelism());
+        long start = System.currentTimeMillis();
+        Map<Biome, BiomeFeatures> biomes = compiler.compile(Registry.BIOME);
+        LOG.debug(INIT, " Compiled {} biomes in {}ms", biomes.size(), System.currentTimeMillis() - start);
+        LOG.debug(INIT, " Replayed {} biomes from compile cache", compiler.getReplayed());
+        LOG.debug(INIT, " Serializer cache hits: {}, misses: {}", compiler.getCache().getHits(), compiler.getCache().getMisses());
+        LOG.debug(INIT, " Features indexed without json: {}", compiler.getCache().getStreamed());
+        LOG.debug(INIT, " Shared compiled features: {}", compiler.getCache().getReused());
+        LOG.debug(INIT, " Deduplicated deserializations: {}", compiler.getCache().getDeduplicated());
+
         LOG.debug(INIT, " Initialization complete");
         return new FeatureManager(biomes);
     }
@@ -92,14 +154,7 @@ public class FeatureManager implements FeatureDecorator {
         TemplateManager.register();
     }
 
-    private static BiomeFeatures compute(Biome biome, FeatureModifiers modifiers) {
-        BiomeFeatures.Builder builder = BiomeFeatures.builder();
-        for (GenerationStep.Feature stage : GenerationStep.Feature.values()) {
-            for (ConfiguredFeature<?, ?> feature : biome.getFeaturesForStep(stage)) {
-                BiomeFeature biomeFeature = modifiers.getFeature(biome, feature);
-                builder.add(stage, biomeFeature);
-            }
-        }
-        return builder.build();
+    public static void registerTemplates(TemplateSettings settings) {
+        TemplateManager.register(settings);
     }
 }
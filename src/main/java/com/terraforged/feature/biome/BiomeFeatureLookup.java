@@ -0,0 +1,49 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.biome;
+
+import net.minecraft.world.biome.Biome;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface BiomeFeatureLookup {
+
+    BiomeFeatures getFeatures(Biome biome);
+
+    /**
+     * Prepare the features for the given biomes ahead of them being requested. Lookups that compile their
+     * contents up front have nothing to do here.
+     */
+    default CompletableFuture<Void> warmUp(Iterable<Biome> biomes) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    static BiomeFeatureLookup of(Map<Biome, BiomeFeatures> biomes) {
+        BiomeIndex<BiomeFeatures> index = BiomeIndex.of(biomes);
+        return biome -> index.getOrDefault(biome, BiomeFeatures.NONE);
+    }
+}
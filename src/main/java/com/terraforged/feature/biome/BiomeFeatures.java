@@ -25,28 +25,124 @@
 
 package com.terraforged.feature.biome;
 
+import com.terraforged.feature.predicate.FeaturePredicate;
 import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * The compiled features of a biome, flattened into parallel predicate & feature arrays in generation order.
+ * The features of each stage occupy the range [getStart(stage), getEnd(stage)) of the arrays.
+ */
 public class BiomeFeatures {
 
+    public static final int STAGES = GenerationStep.Feature.values().length;
+    public static final int NO_ID = -1;
     public static final BiomeFeatures NONE = BiomeFeatures.builder().build();
-    private static final List<BiomeFeature> empty = Collections.emptyList();
 
-    private final Map<GenerationStep.Feature, List<BiomeFeature>> features;
+    private final int[] offsets;
+    private final int[] ordinals;
+    private final int predicateCount;
+    private final int[] predicateIds;
+    private final FeaturePredicate[] predicates;
+    private final ConfiguredFeature<?, ?>[] features;
+    private final List<List<BiomeFeature>> stages;
 
     public BiomeFeatures(Builder builder) {
-        this.features = builder.features;
+        List<BiomeFeature> all = new ArrayList<>();
+        List<Integer> allOrdinals = new ArrayList<>();
+        this.offsets = new int[STAGES + 1];
+        for (GenerationStep.Feature stage : GenerationStep.Feature.values()) {
+            offsets[stage.ordinal()] = all.size();
+            all.addAll(builder.features.getOrDefault(stage, Collections.emptyList()));
+            allOrdinals.addAll(builder.ordinals.getOrDefault(stage, Collections.emptyList()));
+        }
+        offsets[STAGES] = all.size();
+
+        this.ordinals = new int[allOrdinals.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = allOrdinals.get(i);
+        }
+
+        BiomeFeature[] entries = all.toArray(new BiomeFeature[0]);
+        this.predicates = new FeaturePredicate[entries.length];
+        this.features = new ConfiguredFeature<?, ?>[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            predicates[i] = entries[i].getPredicate();
+            features[i] = entries[i].getFeature();
+        }
+
+        // memoizable predicates shared by multiple features are given the same id
+        Map<FeaturePredicate, Integer> ids = new IdentityHashMap<>();
+        this.predicateIds = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            FeaturePredicate predicate = predicates[i];
+            predicateIds[i] = predicate.isMemoizable() ? ids.computeIfAbsent(predicate, p -> ids.size()) : NO_ID;
+        }
+        this.predicateCount = ids.size();
+
+        List<BiomeFeature> view = Arrays.asList(entries);
+        this.stages = new ArrayList<>(STAGES);
+        for (int stage = 0; stage < STAGES; stage++) {
+            stages.add(Collections.unmodifiableList(view.subList(offsets[stage], offsets[stage + 1])));
+        }
+
         builder.features = Collections.emptyMap();
+        builder.ordinals = Collections.emptyMap();
     }
 
     public List<BiomeFeature> getStage(GenerationStep.Feature stage) {
-        return features.getOrDefault(stage, empty);
+        return stages.get(stage.ordinal());
+    }
+
+    public int size() {
+        return features.length;
+    }
+
+    public int getStart(int stage) {
+        return offsets[stage];
+    }
+
+    public int getEnd(int stage) {
+        return offsets[stage + 1];
+    }
+
+    /**
+     * Returns the position of the feature at the given index within its stage of the biome's original feature
+     * list. This is used to seed the feature so must be preserved when features are dropped during compilation.
+     */
+    public int getOrdinal(int index) {
+        return ordinals[index];
+    }
+
+    public FeaturePredicate getPredicate(int index) {
+        return predicates[index];
+    }
+
+    /**
+     * Returns the per-chunk memoization id of the predicate at the given index, or NO_ID if it must be evaluated
+     * for every feature
+     */
+    public int getPredicateId(int index) {
+        return predicateIds[index];
+    }
+
+    /**
+     * Returns the number of distinct memoizable predicates used by this biome's features
+     */
+    public int getPredicateCount() {
+        return predicateCount;
+    }
+
+    public ConfiguredFeature<?, ?> getFeature(int index) {
+        return features[index];
     }
 
     public static Builder builder() {
@@ -55,13 +151,25 @@ public class BiomeFeatures {
 
     public static class Builder {
 
+        private final int[] counts = new int[STAGES];
         private Map<GenerationStep.Feature, List<BiomeFeature>> features = Collections.emptyMap();
+        private Map<GenerationStep.Feature, List<Integer>> ordinals = Collections.emptyMap();
 
         public Builder add(GenerationStep.Feature stage, BiomeFeature feature) {
             if (features.isEmpty()) {
                 features = new EnumMap<>(GenerationStep.Feature.class);
+                ordinals = new EnumMap<>(GenerationStep.Feature.class);
             }
             features.computeIfAbsent(stage, s -> new ArrayList<>()).add(feature);
+            ordinals.computeIfAbsent(stage, s -> new ArrayList<>()).add(counts[stage.ordinal()]++);
+            return this;
+        }
+
+        /**
+         * Skip over a feature that will never generate, keeping the ordinals of subsequent features in the stage
+         */
+        public Builder skip(GenerationStep.Feature stage) {
+            counts[stage.ordinal()]++;
             return this;
         }
 
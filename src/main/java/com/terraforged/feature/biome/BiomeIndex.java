@@ -0,0 +1,105 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.biome;
+
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A dense array of values indexed by the raw registry id of each biome. Biomes that were not present when the
+ * index was built (or whose id has since changed) are held in a fallback map.
+ */
+public class BiomeIndex<T> {
+
+    private final Biome[] keys;
+    private final Object[] values;
+    private final Map<Biome, T> fallback = new ConcurrentHashMap<>();
+
+    private BiomeIndex(int size) {
+        this.keys = new Biome[size];
+        this.values = new Object[size];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(Biome biome) {
+        int id = Registry.BIOME.getRawId(biome);
+        if (id >= 0 && id < keys.length && keys[id] == biome) {
+            return (T) values[id];
+        }
+        return fallback.get(biome);
+    }
+
+    public T getOrDefault(Biome biome, T def) {
+        T value = get(biome);
+        return value == null ? def : value;
+    }
+
+    public T computeIfAbsent(Biome biome, Function<Biome, T> function) {
+        T value = get(biome);
+        if (value != null) {
+            return value;
+        }
+        return fallback.computeIfAbsent(biome, function);
+    }
+
+    private void put(Biome biome, T value) {
+        int id = Registry.BIOME.getRawId(biome);
+        if (id >= 0 && id < keys.length) {
+            keys[id] = biome;
+            values[id] = value;
+        } else {
+            fallback.put(biome, value);
+        }
+    }
+
+    public static <T> BiomeIndex<T> of(Map<Biome, T> map) {
+        BiomeIndex<T> index = new BiomeIndex<>(size(map.keySet()));
+        for (Map.Entry<Biome, T> entry : map.entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+        }
+        return index;
+    }
+
+    public static <T> BiomeIndex<T> of(Iterable<Biome> biomes, Function<Biome, T> function) {
+        BiomeIndex<T> index = new BiomeIndex<>(size(biomes));
+        for (Biome biome : biomes) {
+            index.put(biome, function.apply(biome));
+        }
+        return index;
+    }
+
+    private static int size(Iterable<Biome> biomes) {
+        int max = -1;
+        for (Biome biome : biomes) {
+            max = Math.max(max, Registry.BIOME.getRawId(biome));
+        }
+        return max + 1;
+    }
+}
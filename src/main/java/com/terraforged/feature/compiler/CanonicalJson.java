@@ -0,0 +1,98 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.compiler;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Map;
+
+/**
+ * Wraps a JsonElement with a structural hash that does not depend on the order of object members, allowing
+ * equal trees to be used as map keys without re-hashing them on every lookup. Numbers are hashed by their
+ * double value so that equal numbers of different types (ie 1 & 1.0) produce the same hash, consistent with
+ * JsonPrimitive.equals.
+ */
+public class CanonicalJson {
+
+    private final int hash;
+    private final JsonElement element;
+
+    public CanonicalJson(JsonElement element) {
+        this.element = element;
+        this.hash = hash(element);
+    }
+
+    public JsonElement getElement() {
+        return element;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CanonicalJson that = (CanonicalJson) o;
+        return hash == that.hash && element.equals(that.element);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    public static int hash(JsonElement element) {
+        if (element.isJsonObject()) {
+            // sum of entry hashes is independent of member order
+            int hash = 0;
+            for (Map.Entry<String, JsonElement> e : element.getAsJsonObject().entrySet()) {
+                hash += e.getKey().hashCode() ^ (31 * hash(e.getValue()));
+            }
+            return 17 + hash;
+        }
+
+        if (element.isJsonArray()) {
+            int hash = 19;
+            for (JsonElement e : element.getAsJsonArray()) {
+                hash = 31 * hash + hash(e);
+            }
+            return hash;
+        }
+
+        if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isNumber()) {
+                return Double.hashCode(primitive.getAsDouble());
+            }
+            return primitive.hashCode();
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.compiler;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.mojang.datafixers.types.JsonOps;
+import com.terraforged.feature.FeatureSerializer;
+import com.terraforged.feature.biome.BiomeFeature;
+import com.terraforged.feature.matcher.feature.FeatureValues;
+import com.terraforged.feature.matcher.feature.ValueIds;
+import com.terraforged.feature.modifier.BiomeModifiers;
+import com.terraforged.feature.modifier.FeatureModifiers;
+import com.terraforged.feature.modifier.ModifierRecord;
+import com.terraforged.feature.transformer.FeatureTransformer;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+import net.minecraft.world.gen.feature.DecoratedFeatureConfig;
+import net.minecraft.world.gen.feature.RandomBooleanFeatureConfig;
+import net.minecraft.world.gen.feature.RandomFeatureConfig;
+import net.minecraft.world.gen.feature.RandomFeatureEntry;
+import net.minecraft.world.gen.feature.RandomRandomFeatureConfig;
+import net.minecraft.world.gen.feature.SimpleRandomFeatureConfig;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Holds state that is shared between all biomes for the duration of a single compilation.
+ */
+public class CompileCache {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger deduplicated = new AtomicInteger();
+    private final AtomicInteger streamed = new AtomicInteger();
+    private final ValueIds ids = new ValueIds();
+    private final Map<IdentityKey<ConfiguredFeature<?, ?>>, JsonElement> elements = new ConcurrentHashMap<>();
+    private final Map<IdentityKey<JsonElement>, FeatureValues> values = new ConcurrentHashMap<>();
+    private final Map<IdentityKey<ConfiguredFeature<?, ?>>, FeatureValues> featureValues = new ConcurrentHashMap<>();
+    private final Map<JsonPrimitive, JsonPrimitive> primitives = new ConcurrentHashMap<>();
+    private final Map<Biome, BiomeModifiers> biomeModifiers = new ConcurrentHashMap<>();
+    private final Map<BiomeModifiers, BiomeModifiers> signatures = new ConcurrentHashMap<>();
+    private final Map<CanonicalJson, ConfiguredFeature<?, ?>> deserialized = new ConcurrentHashMap<>();
+    private final Map<BitSet, FeatureTransformer> fused = new ConcurrentHashMap<>();
+    private final Map<BiomeModifiers, Map<IdentityKey<ConfiguredFeature<?, ?>>, Compiled>> compiled = new ConcurrentHashMap<>();
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of features whose compiled result was shared with an earlier biome
+     */
+    public int getReused() {
+        return reused.get();
+    }
+
+    /**
+     * Serialize the feature, re-using the element produced for any previous call with the same feature instance.
+     * Nested features held by decorated & random selector configs are cached individually.
+     *
+     * Returned elements may be shared between multiple trees so must not be mutated.
+     */
+    public JsonElement serialize(ConfiguredFeature<?, ?> feature) {
+        // nested features are serialized recursively so the entry can't be created inside computeIfAbsent
+        IdentityKey<ConfiguredFeature<?, ?>> key = new IdentityKey<>(feature);
+        JsonElement element = elements.get(key);
+        if (element != null) {
+            hits.incrementAndGet();
+            return element;
+        }
+
+        misses.incrementAndGet();
+        element = serializeFeature(feature);
+        JsonElement existing = elements.putIfAbsent(key, element);
+        return existing == null ? element : existing;
+    }
+
+    /**
+     * Returns the number of features whose values were collected without building a json tree
+     */
+    public int getStreamed() {
+        return streamed.get();
+    }
+
+    /**
+     * Returns the number of deserializations avoided by re-using a feature deserialized from equal json
+     */
+    public int getDeduplicated() {
+        return deduplicated.get();
+    }
+
+    /**
+     * Deserialize the element, returning the same ConfiguredFeature instance for all structurally equal elements
+     */
+    public ConfiguredFeature<?, ?> deserialize(JsonElement element) {
+        CanonicalJson key = new CanonicalJson(element);
+        ConfiguredFeature<?, ?> feature = deserialized.get(key);
+        if (feature != null) {
+            deduplicated.incrementAndGet();
+            return feature;
+        }
+
+        feature = FeatureSerializer.deserializeUnchecked(element);
+        ConfiguredFeature<?, ?> existing = deserialized.putIfAbsent(key, feature);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            return existing;
+        }
+        return feature;
+    }
+
+    /**
+     * Returns the fusion of the transformers at the given (ascending) indices, computed once per set of indices
+     */
+    public FeatureTransformer getFusedTransformer(int[] indices, IntFunction<FeatureTransformer> transformers) {
+        BitSet key = new BitSet();
+        for (int index : indices) {
+            key.set(index);
+        }
+        return fused.computeIfAbsent(key, k -> {
+            List<FeatureTransformer> list = new ArrayList<>(indices.length);
+            for (int i = k.nextSetBit(0); i >= 0; i = k.nextSetBit(i + 1)) {
+                list.add(transformers.apply(i));
+            }
+            return FeatureTransformer.fuse(list);
+        });
+    }
+
+    /**
+     * Returns the modifiers applicable to the biome, computed once per biome. Biomes with the same applicable
+     * modifiers share the same instance.
+     */
+    public BiomeModifiers getBiomeModifiers(Biome biome, FeatureModifiers modifiers) {
+        return biomeModifiers.computeIfAbsent(biome, b -> {
+            BiomeModifiers applicable = modifiers.getBiomeModifiers(b);
+            BiomeModifiers existing = signatures.putIfAbsent(applicable, applicable);
+            return existing == null ? applicable : existing;
+        });
+    }
+
+    /**
+     * Returns the result of a previous compilation of the feature for a biome with the same applicable modifiers
+     * or null if it has not been compiled yet
+     */
+    public Compiled getCompiled(BiomeModifiers modifiers, ConfiguredFeature<?, ?> feature) {
+        Compiled result = getCompiled(modifiers).get(new IdentityKey<>(feature));
+        if (result != null) {
+            reused.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Store the result of compiling the feature, returning the existing result if another thread stored one first
+     */
+    public Compiled putCompiled(BiomeModifiers modifiers, ConfiguredFeature<?, ?> feature, BiomeFeature result, ModifierRecord record) {
+        Compiled value = new Compiled(result, record);
+        Compiled existing = getCompiled(modifiers).putIfAbsent(new IdentityKey<>(feature), value);
+        return existing == null ? value : existing;
+    }
+
+    private Map<IdentityKey<ConfiguredFeature<?, ?>>, Compiled> getCompiled(BiomeModifiers modifiers) {
+        return compiled.computeIfAbsent(modifiers, m -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Returns the primitive values of the element, computed once per element instance. Values are interned
+     * across all elements of the compilation.
+     */
+    public FeatureValues getValues(JsonElement element) {
+        return values.computeIfAbsent(new IdentityKey<>(element), k -> FeatureValues.of(element, ids, this::intern));
+    }
+
+    /**
+     * Returns the primitive values of the feature, computed once per feature instance. Values are streamed out of
+     * the feature's serializer where possible, falling back to the values of its serialized json otherwise.
+     */
+    public FeatureValues getValues(ConfiguredFeature<?, ?> feature) {
+        // may fall back to serialize & getValues(JsonElement) so the entry is not created inside computeIfAbsent
+        IdentityKey<ConfiguredFeature<?, ?>> key = new IdentityKey<>(feature);
+        FeatureValues result = featureValues.get(key);
+        if (result == null) {
+            result = streamValues(feature);
+            FeatureValues existing = featureValues.putIfAbsent(key, result);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return result;
+    }
+
+    private FeatureValues streamValues(ConfiguredFeature<?, ?> feature) {
+        try {
+            FeatureValues result = FeatureValues.of(feature, ids, this::intern);
+            streamed.incrementAndGet();
+            return result;
+        } catch (Throwable t) {
+            return getValues(serialize(feature));
+        }
+    }
+
+    private JsonPrimitive intern(JsonPrimitive primitive) {
+        JsonPrimitive interned = primitives.putIfAbsent(primitive, primitive);
+        return interned == null ? primitive : interned;
+    }
+
+    private JsonElement serializeFeature(ConfiguredFeature<?, ?> feature) {
+        if (feature.config instanceof DecoratedFeatureConfig) {
+            return feature(feature, decorated((DecoratedFeatureConfig) feature.config));
+        }
+
+        // note SimpleRandomFeatureConfig & SimpleRandomFeatureConfigConfig names a mixed up
+        if (feature.config instanceof SimpleRandomFeatureConfig) {
+            return feature(feature, single((SimpleRandomFeatureConfig) feature.config));
+        }
+
+        if (feature.config instanceof RandomBooleanFeatureConfig) {
+            return feature(feature, twoChoice((RandomBooleanFeatureConfig) feature.config));
+        }
+
+        if (feature.config instanceof RandomFeatureConfig) {
+            return feature(feature, multi((RandomFeatureConfig) feature.config));
+        }
+
+        if (feature.config instanceof RandomRandomFeatureConfig) {
+            return feature(feature, multiChance((RandomRandomFeatureConfig) feature.config));
+        }
+
+        return FeatureSerializer.serialize(feature);
+    }
+
+    private JsonObject decorated(DecoratedFeatureConfig config) {
+        JsonObject root = new JsonObject();
+        root.add("feature", serialize(config.feature));
+        root.add("decorator", config.decorator.serialize(JsonOps.INSTANCE).getValue());
+        return root;
+    }
+
+    private JsonObject single(SimpleRandomFeatureConfig config) {
+        JsonArray features = new JsonArray();
+        for (ConfiguredFeature<?, ?> feature : config.features) {
+            features.add(serialize(feature));
+        }
+        JsonObject root = new JsonObject();
+        root.add("features", features);
+        return root;
+    }
+
+    private JsonObject twoChoice(RandomBooleanFeatureConfig config) {
+        JsonObject root = new JsonObject();
+        root.add("feature_true", serialize(config.featureTrue));
+        root.add("feature_false", serialize(config.featureFalse));
+        return root;
+    }
+
+    private JsonObject multi(RandomFeatureConfig config) {
+        JsonArray features = new JsonArray();
+        for (RandomFeatureEntry<?> entry : config.features) {
+            // entries are serialized as a flattened feature with an additional chance field
+            JsonObject feature = serialize(entry.feature).getAsJsonObject();
+            JsonObject element = new JsonObject();
+            element.add("name", feature.get("name"));
+            element.add("config", feature.get("config"));
+            element.add("chance", new JsonPrimitive(entry.chance));
+            features.add(element);
+        }
+        JsonObject root = new JsonObject();
+        root.add("features", features);
+        root.add("default", serialize(config.defaultFeature));
+        return root;
+    }
+
+    private JsonObject multiChance(RandomRandomFeatureConfig config) {
+        JsonArray features = new JsonArray();
+        for (ConfiguredFeature<?, ?> feature : config.features) {
+            features.add(serialize(feature));
+        }
+        JsonObject root = new JsonObject();
+        root.add("features", features);
+        root.add("count", new JsonPrimitive(config.count));
+        return root;
+    }
+
+    private static JsonElement feature(ConfiguredFeature<?, ?> feature, JsonObject config) {
+        JsonObject root = new JsonObject();
+        root.addProperty("name", Registry.FEATURE.getId(feature.feature).toString());
+        root.add("config", config);
+        return root;
+    }
+
+    public static class Compiled {
+
+        private final BiomeFeature feature;
+        private final ModifierRecord record;
+
+        private Compiled(BiomeFeature feature, ModifierRecord record) {
+            this.feature = feature;
+            this.record = record;
+        }
+
+        public BiomeFeature getFeature() {
+            return feature;
+        }
+
+        public ModifierRecord getRecord() {
+            return record;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.compiler;
+
+import java.nio.file.Path;
+
+public class CompilerSettings {
+
+    public static final CompilerSettings DEFAULT = CompilerSettings.builder().build();
+    public static final CompilerSettings SERIAL = CompilerSettings.builder().parallelism(1).build();
+
+    private final boolean lazy;
+    private final int parallelism;
+    private final Path cacheDir;
+
+    private CompilerSettings(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.cacheDir = builder.cacheDir;
+        this.lazy = builder.lazy;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private boolean lazy = false;
+        private Path cacheDir = null;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Set the number of worker threads used to compile biome feature lists. A value of 1 compiles
+         * every biome serially on the calling thread.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        /**
+         * Compile the features of each biome on first use rather than compiling every registered biome up front
+         */
+        public Builder lazy(boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+
+        /**
+         * Set the directory that compiled biome feature lists are cached to between runs. The cache is disabled
+         * when no directory is set.
+         */
+        public Builder cache(Path dir) {
+            this.cacheDir = dir;
+            return this;
+        }
+
+        public CompilerSettings build() {
+            return new CompilerSettings(this);
+        }
+    }
+}
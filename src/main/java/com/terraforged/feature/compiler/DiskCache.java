@@ -0,0 +1,287 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.compiler;
+
+import com.terraforged.feature.FeatureManager;
+import com.terraforged.feature.FeatureSerializer;
+import com.terraforged.feature.modifier.FeatureModifiers;
+import com.terraforged.feature.modifier.Modifier;
+import com.terraforged.feature.modifier.ModifierList;
+import com.terraforged.feature.modifier.ModifierRecord;
+import com.terraforged.feature.predicate.FeaturePredicate;
+import com.terraforged.feature.transformer.FeatureReplacer;
+import com.terraforged.feature.transformer.FeatureTransformer;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persists the ModifierRecords of a compilation so that subsequent runs can replay them instead of testing every
+ * modifier against every feature. The cache is keyed by a hash of the loaded mods & their versions, the loaded
+ * modifier configs, the registered modifiers & their parameters, and the contents of the feature & biome registries.
+ */
+public class DiskCache {
+
+    public static final DiskCache NONE = new DiskCache(null, null);
+
+    private static final int MAGIC = 0x46454154;
+    private static final int VERSION = 1;
+    private static final Marker marker = MarkerManager.getMarker("CACHE");
+
+    private final Path file;
+    private final FeatureModifiers modifiers;
+    private String key;
+
+    private DiskCache(Path file, FeatureModifiers modifiers) {
+        this.file = file;
+        this.modifiers = modifiers;
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public Map<Identifier, ModifierRecord[]> load() {
+        if (!isEnabled() || !Files.exists(file)) {
+            return Collections.emptyMap();
+        }
+
+        String key = getKey();
+        if (key == null) {
+            return Collections.emptyMap();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(in.readUTF())) {
+                FeatureManager.LOG.debug(marker, " Compile cache is out of date: {}", file);
+                return Collections.emptyMap();
+            }
+
+            int biomes = in.readInt();
+            Map<Identifier, ModifierRecord[]> records = new HashMap<>(biomes);
+            for (int i = 0; i < biomes; i++) {
+                Identifier biome = new Identifier(in.readUTF());
+                ModifierRecord[] features = new ModifierRecord[in.readInt()];
+                for (int j = 0; j < features.length; j++) {
+                    features[j] = readRecord(in);
+                }
+                records.put(biome, features);
+            }
+
+            FeatureManager.LOG.debug(marker, " Loaded compile cache: {}", file);
+            return records;
+        } catch (Throwable t) {
+            FeatureManager.LOG.warn(marker, " Failed to read compile cache: {}", file, t);
+            return Collections.emptyMap();
+        }
+    }
+
+    public void save(Map<Identifier, ModifierRecord[]> records) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        String key = getKey();
+        if (key == null) {
+            return;
+        }
+
+        // the records may still be added to by other threads (lazy mode) so write from a snapshot
+        Map<Identifier, ModifierRecord[]> snapshot = new HashMap<>(records);
+
+        try {
+            Files.createDirectories(file.getParent());
+            // concurrent saves each need their own temp file
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(key);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<Identifier, ModifierRecord[]> entry : snapshot.entrySet()) {
+                    out.writeUTF(entry.getKey().toString());
+                    out.writeInt(entry.getValue().length);
+                    for (ModifierRecord record : entry.getValue()) {
+                        writeRecord(record, out);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            FeatureManager.LOG.debug(marker, " Saved compile cache: {}", file);
+        } catch (IOException e) {
+            FeatureManager.LOG.warn(marker, " Failed to write compile cache: {}", file, e);
+        }
+    }
+
+    /**
+     * Hashed on the first load or save. An empty key marks a failed hash and disables the cache
+     */
+    private synchronized String getKey() {
+        if (key == null) {
+            try {
+                key = createKey(modifiers);
+            } catch (Throwable t) {
+                FeatureManager.LOG.warn(marker, " Unable to create compile cache key", t);
+                key = "";
+            }
+        }
+        return key.isEmpty() ? null : key;
+    }
+
+    public static DiskCache create(CompilerSettings settings, IWorld world, FeatureModifiers modifiers) {
+        if (settings.getCacheDir() == null) {
+            return NONE;
+        }
+        try {
+            Identifier dimension = DimensionType.getId(world.getDimension().getType());
+            String name = dimension.getNamespace() + "_" + dimension.getPath().replace('/', '_') + ".bin";
+            return new DiskCache(settings.getCacheDir().resolve(name), modifiers);
+        } catch (Throwable t) {
+            FeatureManager.LOG.warn(marker, " Unable to create compile cache", t);
+            return NONE;
+        }
+    }
+
+    private static ModifierRecord readRecord(DataInputStream in) throws IOException {
+        boolean valid = in.readBoolean();
+        int replacer = in.readInt();
+        int predicate = in.readInt();
+        int[] transformers = new int[in.readShort()];
+        for (int i = 0; i < transformers.length; i++) {
+            transformers[i] = in.readInt();
+        }
+        return new ModifierRecord(valid, replacer, transformers, predicate);
+    }
+
+    private static void writeRecord(ModifierRecord record, DataOutputStream out) throws IOException {
+        out.writeBoolean(record.isValid());
+        out.writeInt(record.getReplacer());
+        out.writeInt(record.getPredicate());
+        out.writeShort(record.getTransformers().length);
+        for (int index : record.getTransformers()) {
+            out.writeInt(index);
+        }
+    }
+
+    private static String createKey(FeatureModifiers modifiers) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        update(digest, String.valueOf(FeatureManager.class.getPackage().getImplementationVersion()));
+
+        // modifier configs loaded from datapacks
+        for (String config : modifiers.getConfigs()) {
+            update(digest, config);
+        }
+
+        // modifiers registered in code can only be identified by their matchers & position in the lists
+        update(digest, "dynamics=" + modifiers.getDynamic().size());
+        updateReplacers(digest, modifiers.getReplacers());
+        updatePredicates(digest, modifiers.getPredicates());
+        updateTransformers(digest, modifiers.getTransformers());
+
+        for (Identifier id : Registry.FEATURE.getIds()) {
+            update(digest, id.toString());
+        }
+
+        // feature configs are not serialized here as that costs as much as the compile the cache is meant to skip,
+        // so changes to their content are covered by the versions of the mods that register them
+        for (ModContainer mod : FabricLoader.getInstance().getAllMods()) {
+            update(digest, mod.getMetadata().getId() + "@" + mod.getMetadata().getVersion().getFriendlyString());
+        }
+
+        for (Biome biome : Registry.BIOME) {
+            update(digest, String.valueOf(Registry.BIOME.getId(biome)));
+            for (GenerationStep.Feature stage : GenerationStep.Feature.values()) {
+                for (ConfiguredFeature<?, ?> feature : biome.getFeaturesForStep(stage)) {
+                    update(digest, Registry.FEATURE.getId(feature.feature) + ":" + feature.config.getClass().getName());
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static void updateReplacers(MessageDigest digest, ModifierList<FeatureReplacer> list) {
+        update(digest, "replacers=" + list.size());
+        for (Modifier<FeatureReplacer> modifier : list) {
+            update(digest, modifier.getMatcher().toString());
+            try {
+                update(digest, FeatureSerializer.serialize(modifier.getModifier().get()).toString());
+            } catch (Throwable t) {
+                // falls back to the config's toString() which, unless overridden, differs on every run
+                update(digest, String.valueOf(modifier.getModifier().get().config));
+            }
+        }
+    }
+
+    private static void updatePredicates(MessageDigest digest, ModifierList<FeaturePredicate> list) {
+        update(digest, "predicates=" + list.size());
+        for (Modifier<FeaturePredicate> modifier : list) {
+            update(digest, modifier.getMatcher().toString());
+            // predicates describe their parameters in toString(), others fall back to a per-run identity
+            update(digest, modifier.getModifier().toString());
+        }
+    }
+
+    private static void updateTransformers(MessageDigest digest, ModifierList<FeatureTransformer> list) {
+        update(digest, "transformers=" + list.size());
+        for (Modifier<FeatureTransformer> modifier : list) {
+            update(digest, modifier.getMatcher().toString());
+            update(digest, modifier.getModifier().toString());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.compiler;
+
+import com.terraforged.feature.FeatureManager;
+import com.terraforged.feature.biome.BiomeFeature;
+import com.terraforged.feature.biome.BiomeFeatures;
+import com.terraforged.feature.modifier.FeatureModifiers;
+import com.terraforged.feature.modifier.ModifierRecord;
+import com.terraforged.feature.predicate.FeaturePredicate;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FeatureCompiler {
+
+    private static final GenerationStep.Feature[] STAGES = GenerationStep.Feature.values();
+
+    private volatile CompileCache cache;
+    private final DiskCache diskCache;
+    private final CompilerSettings settings;
+    private final FeatureModifiers modifiers;
+    private final AtomicInteger replayed = new AtomicInteger();
+    private volatile Map<Identifier, ModifierRecord[]> cached;
+    private final Map<Identifier, ModifierRecord[]> recorded = new ConcurrentHashMap<>();
+
+    public FeatureCompiler(FeatureModifiers modifiers, CompilerSettings settings) {
+        this(modifiers, settings, DiskCache.NONE);
+    }
+
+    public FeatureCompiler(FeatureModifiers modifiers, CompilerSettings settings, DiskCache diskCache) {
+        this.settings = settings;
+        this.modifiers = modifiers;
+        this.diskCache = diskCache;
+        this.cache = new CompileCache();
+    }
+
+    public CompileCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Discard the state shared between compilations, such as serialized features and memoized results. Later
+     * compilations start from an empty cache.
+     */
+    public void releaseCache() {
+        cache = new CompileCache();
+    }
+
+    /**
+     * The records loaded from the disk cache. Loading is deferred to the first compilation so that lazy mode
+     * doesn't pay for hashing the cache key at startup.
+     */
+    private Map<Identifier, ModifierRecord[]> getCached() {
+        Map<Identifier, ModifierRecord[]> records = cached;
+        if (records == null) {
+            synchronized (this) {
+                records = cached;
+                if (records == null) {
+                    records = diskCache.load();
+                    cached = records;
+                }
+            }
+        }
+        return records;
+    }
+
+    public int getReplayed() {
+        return replayed.get();
+    }
+
+    public Map<Biome, BiomeFeatures> compile(Iterable<Biome> biomes) {
+        List<Biome> list = new ArrayList<>();
+        for (Biome biome : biomes) {
+            list.add(biome);
+        }
+
+        BiomeFeatures[] results = new BiomeFeatures[list.size()];
+        if (settings.isParallel() && list.size() > 1) {
+            try {
+                compileParallel(list, results);
+            } catch (Throwable t) {
+                FeatureManager.LOG.warn(FeatureManager.INIT, " Parallel compilation failed, falling back to serial", t);
+                Arrays.fill(results, null);
+                compileSerial(list, results);
+            }
+        } else {
+            compileSerial(list, results);
+        }
+
+        // assemble in registry order regardless of the order that tasks completed in
+        Map<Biome, BiomeFeatures> map = new LinkedHashMap<>(list.size());
+        for (int i = 0; i < results.length; i++) {
+            map.put(list.get(i), results[i]);
+        }
+
+        if (replayed.get() < results.length) {
+            save();
+        }
+
+        return map;
+    }
+
+    /**
+     * Write the records of every biome compiled so far to the disk cache (if enabled)
+     */
+    public void save() {
+        diskCache.save(recorded);
+    }
+
+    public BiomeFeatures compile(Biome biome) {
+        Compilation compilation = new Compilation(biome);
+        BiomeFeatures.Builder builder = BiomeFeatures.builder();
+        for (GenerationStep.Feature stage : STAGES) {
+            for (ConfiguredFeature<?, ?> feature : biome.getFeaturesForStep(stage)) {
+                BiomeFeature biomeFeature = compilation.compile(feature);
+                add(builder, biome, stage, biomeFeature);
+            }
+        }
+        return compilation.complete(builder.build());
+    }
+
+    /**
+     * Resolve predicates that only depend on the biome, dropping features that can never generate in it
+     */
+    private static void add(BiomeFeatures.Builder builder, Biome biome, GenerationStep.Feature stage, BiomeFeature feature) {
+        FeaturePredicate predicate = feature.getPredicate().resolve(biome);
+        if (predicate == FeaturePredicate.DENY) {
+            builder.skip(stage);
+        } else if (predicate == feature.getPredicate()) {
+            builder.add(stage, feature);
+        } else {
+            builder.add(stage, new BiomeFeature(predicate, feature.getFeature()));
+        }
+    }
+
+    private void compileSerial(List<Biome> biomes, BiomeFeatures[] results) {
+        for (int i = 0; i < results.length; i++) {
+            results[i] = compile(biomes.get(i));
+        }
+    }
+
+    private void compileParallel(List<Biome> biomes, BiomeFeatures[] results) {
+        ForkJoinPool pool = new ForkJoinPool(settings.getParallelism());
+        try {
+            pool.invoke(new BiomesTask(biomes, results));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private class Compilation {
+
+        // compilations in progress keep using the cache they started with if it is released
+        private final CompileCache cache = FeatureCompiler.this.cache;
+        private final Biome biome;
+        private final Identifier name;
+        private final ModifierRecord[] replay;
+        private final ModifierRecord[] records;
+        private int index = 0;
+
+        private Compilation(Biome biome) {
+            int size = 0;
+            for (GenerationStep.Feature stage : STAGES) {
+                size += biome.getFeaturesForStep(stage).size();
+            }
+
+            this.biome = biome;
+            this.name = Registry.BIOME.getId(biome);
+            this.records = new ModifierRecord[size];
+
+            ModifierRecord[] replay = name == null ? null : getCached().get(name);
+            this.replay = replay != null && replay.length == size ? replay : null;
+        }
+
+        private int next(int count) {
+            int start = index;
+            index += count;
+            return start;
+        }
+
+        private BiomeFeature compile(ConfiguredFeature<?, ?> feature) {
+            return compile(next(1), feature);
+        }
+
+        private BiomeFeature compile(int index, ConfiguredFeature<?, ?> feature) {
+            if (replay != null) {
+                records[index] = replay[index];
+                return modifiers.replay(biome, feature, cache, replay[index]);
+            }
+            ModifierRecord record = new ModifierRecord();
+            records[index] = record;
+            return modifiers.getFeature(biome, feature, cache, record);
+        }
+
+        private BiomeFeatures complete(BiomeFeatures features) {
+            if (replay != null) {
+                replayed.incrementAndGet();
+            }
+            if (name != null) {
+                recorded.put(name, records);
+            }
+            return features;
+        }
+    }
+
+    private class BiomesTask extends RecursiveAction {
+
+        private final List<Biome> biomes;
+        private final BiomeFeatures[] results;
+
+        private BiomesTask(List<Biome> biomes, BiomeFeatures[] results) {
+            this.biomes = biomes;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            List<BiomeTask> tasks = new ArrayList<>(biomes.size());
+            for (int i = 0; i < biomes.size(); i++) {
+                tasks.add(new BiomeTask(biomes.get(i), results, i));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private class BiomeTask extends RecursiveAction {
+
+        private final int index;
+        private final Biome biome;
+        private final BiomeFeatures[] results;
+
+        private BiomeTask(Biome biome, BiomeFeatures[] results, int index) {
+            this.biome = biome;
+            this.index = index;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            Compilation compilation = new Compilation(biome);
+            List<StageTask> tasks = new ArrayList<>(STAGES.length);
+            for (GenerationStep.Feature stage : STAGES) {
+                tasks.add(new StageTask(compilation, stage));
+            }
+            invokeAll(tasks);
+
+            BiomeFeatures.Builder builder = BiomeFeatures.builder();
+            for (StageTask task : tasks) {
+                for (BiomeFeature feature : task.join()) {
+                    add(builder, biome, task.stage, feature);
+                }
+            }
+            results[index] = compilation.complete(builder.build());
+        }
+    }
+
+    private class StageTask extends RecursiveTask<List<BiomeFeature>> {
+
+        private final int offset;
+        private final Compilation compilation;
+        private final GenerationStep.Feature stage;
+        private final List<ConfiguredFeature<?, ?>> features;
+
+        private StageTask(Compilation compilation, GenerationStep.Feature stage) {
+            this.stage = stage;
+            this.compilation = compilation;
+            this.features = compilation.biome.getFeaturesForStep(stage);
+            this.offset = compilation.next(features.size());
+        }
+
+        @Override
+        protected List<BiomeFeature> compute() {
+            List<BiomeFeature> list = new ArrayList<>(features.size());
+            for (int i = 0; i < features.size(); i++) {
+                list.add(compilation.compile(offset + i, features.get(i)));
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.compiler;
+
+import com.terraforged.feature.FeatureManager;
+import com.terraforged.feature.biome.BiomeFeatureLookup;
+import com.terraforged.feature.biome.BiomeFeatures;
+import com.terraforged.feature.biome.BiomeIndex;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compiles the features of a biome the first time they are requested. Each biome has a slot that is claimed by
+ * the first thread to request it; any other thread requesting the same biome while it is being compiled waits on
+ * that compilation rather than starting its own.
+ */
+public class LazyFeatures implements BiomeFeatureLookup {
+
+    private final FeatureCompiler compiler;
+    private final BiomeIndex<Slot> slots;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public LazyFeatures(FeatureCompiler compiler) {
+        this.compiler = compiler;
+        this.slots = BiomeIndex.of(Registry.BIOME, biome -> new Slot());
+    }
+
+    @Override
+    public BiomeFeatures getFeatures(Biome biome) {
+        Slot slot = slots.get(biome);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(biome, b -> new Slot());
+        }
+        return slot.get(biome);
+    }
+
+    @Override
+    public CompletableFuture<Void> warmUp(Iterable<Biome> biomes) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int count = 0;
+                for (Biome biome : biomes) {
+                    getFeatures(biome);
+                    count++;
+                }
+                compiler.save();
+                compiler.releaseCache();
+                FeatureManager.LOG.debug(FeatureManager.INIT, "Warmed up {} biomes in {}ms", count, System.currentTimeMillis() - start);
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, "FeatureManager-WarmUp");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Called once the features of a biome have been compiled. The compile cache is only useful while other biomes
+     * remain to be compiled so it is released once every slot has been filled.
+     */
+    private void onCompiled() {
+        if (pending.decrementAndGet() == 0) {
+            compiler.releaseCache();
+            FeatureManager.LOG.debug(FeatureManager.INIT, "Compiled all biomes, released compile cache");
+        }
+    }
+
+    private class Slot {
+
+        private final AtomicReference<CompletableFuture<BiomeFeatures>> task = new AtomicReference<>();
+        private volatile BiomeFeatures value;
+
+        private Slot() {
+            pending.incrementAndGet();
+        }
+
+        private BiomeFeatures get(Biome biome) {
+            BiomeFeatures features = value;
+            if (features != null) {
+                return features;
+            }
+
+            CompletableFuture<BiomeFeatures> current = task.get();
+            if (current == null) {
+                CompletableFuture<BiomeFeatures> claim = new CompletableFuture<>();
+                if (task.compareAndSet(null, claim)) {
+                    features = compile(biome);
+                    value = features;
+                    claim.complete(features);
+                    onCompiled();
+                    return features;
+                }
+                current = task.get();
+            }
+
+            // another thread is compiling this biome
+            return current.join();
+        }
+
+        private BiomeFeatures compile(Biome biome) {
+            try {
+                return compiler.compile(biome);
+            } catch (Throwable t) {
+                FeatureManager.LOG.error(FeatureManager.INIT, "Failed to compile features for biome: {}", Registry.BIOME.getId(biome), t);
+                return BiomeFeatures.NONE;
+            }
+        }
+    }
+}
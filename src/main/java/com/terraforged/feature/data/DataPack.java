@@ -34,6 +34,7 @@ import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -68,4 +69,13 @@ public final class DataPack {
             }
         });
     }
+
+    public static byte[] readBytes(InputStream data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, data.available()));
+        byte[] buffer = new byte[8192];
+        for (int len = data.read(buffer); len != -1; len = data.read(buffer)) {
+            out.write(buffer, 0, len);
+        }
+        return out.toByteArray();
+    }
 }
@@ -28,6 +28,7 @@ package com.terraforged.feature.matcher;
 import com.google.gson.JsonElement;
 import com.terraforged.feature.matcher.biome.BiomeMatcher;
 import com.terraforged.feature.matcher.feature.FeatureMatcher;
+import com.terraforged.feature.matcher.feature.FeatureValues;
 import net.minecraft.world.biome.Biome;
 
 import java.util.function.BiPredicate;
@@ -44,11 +45,23 @@ public class BiomeFeatureMatcher implements BiPredicate<Biome, JsonElement>, Com
         this.featureMatcher = featureMatcher;
     }
 
+    @Override
+    public String toString() {
+        return "BiomeFeatureMatcher{" +
+                "biomeMatcher=" + biomeMatcher +
+                ", featureMatcher=" + featureMatcher +
+                '}';
+    }
+
     @Override
     public boolean test(Biome biome, JsonElement feature) {
         return getBiomeMatcher().test(biome) && getFeatureMatcher().test(feature);
     }
 
+    public boolean test(Biome biome, FeatureValues values) {
+        return getBiomeMatcher().test(biome) && getFeatureMatcher().test(values);
+    }
+
     public BiomeMatcher getBiomeMatcher() {
         return biomeMatcher;
     }
@@ -31,6 +31,7 @@ import net.minecraft.world.biome.Biome;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Predicate;
 
 public class BiomeMatcher implements Predicate<Biome>, Comparable<BiomeMatcher> {
@@ -43,6 +44,20 @@ public class BiomeMatcher implements Predicate<Biome>, Comparable<BiomeMatcher>
         this.biomes = biomes;
     }
 
+    @Override
+    public String toString() {
+        if (biomes.isEmpty()) {
+            return "BiomeMatcher{*}";
+        }
+        Set<String> names = new TreeSet<>();
+        for (Biome biome : biomes) {
+            names.add(String.valueOf(Registry.BIOME.getId(biome)));
+        }
+        return "BiomeMatcher{" +
+                "biomes=" + names +
+                '}';
+    }
+
     @Override
     public int compareTo(BiomeMatcher o) {
         // reverse order so more biomes == tested first
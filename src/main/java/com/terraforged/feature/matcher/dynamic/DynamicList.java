@@ -36,6 +36,10 @@ public class DynamicList implements Iterable<DynamicPredicate> {
 
     private List<DynamicPredicate> list = Collections.emptyList();
 
+    public int size() {
+        return list.size();
+    }
+
     public void add(DynamicMatcher matcher, FeaturePredicate predicate) {
         if (list.isEmpty()) {
             list = new ArrayList<>();
@@ -34,7 +34,6 @@ import net.minecraft.world.gen.feature.Feature;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -44,10 +43,12 @@ public class FeatureMatcher implements Predicate<JsonElement> {
     public static final FeatureMatcher NONE = new FeatureMatcher(Collections.emptyList());
 
     private final List<Rule> rules;
+    private final RuleTable table;
 
     private FeatureMatcher(List<Rule> rules) {
         super();
         this.rules = rules;
+        this.table = new RuleTable(rules);
     }
 
     @Override
@@ -65,26 +66,21 @@ public class FeatureMatcher implements Predicate<JsonElement> {
         if (this == NONE) {
             return false;
         }
-        return test(element, new Search(rules));
+        return table.test(element);
     }
 
-    private boolean test(JsonElement element, Search search) {
-        if (element.isJsonObject()) {
-            for (Map.Entry<String, JsonElement> e : element.getAsJsonObject().entrySet()) {
-                if (test(e.getValue(), search)) {
-                    return true;
-                }
-            }
-        } else if (element.isJsonArray()) {
-            for (JsonElement e : element.getAsJsonArray()) {
-                if (test(e, search)) {
-                    return true;
-                }
-            }
-        } else if (element.isJsonPrimitive()) {
-            return search.test(element.getAsJsonPrimitive());
+    public boolean test(FeatureValues values) {
+        if (this == ANY) {
+            return true;
         }
-        return false;
+        if (this == NONE) {
+            return false;
+        }
+        return table.test(values);
+    }
+
+    public List<Rule> getRules() {
+        return rules;
     }
 
     public static Optional<FeatureMatcher> of(JsonElement element) {
@@ -0,0 +1,180 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.matcher.feature;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * The set of primitive values contained in a serialized feature. Object keys are not included, matching the
+ * values that a FeatureMatcher searches for.
+ */
+public class FeatureValues implements Iterable<JsonPrimitive> {
+
+    public static final FeatureValues EMPTY = new FeatureValues(Collections.emptySet(), null);
+
+    private final ValueIds ids;
+    private final Set<JsonPrimitive> values;
+    private volatile Mask mask = Mask.NONE;
+
+    private FeatureValues(Set<JsonPrimitive> values, ValueIds ids) {
+        this.ids = ids;
+        this.values = values;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public boolean contains(JsonPrimitive value) {
+        return values.contains(value);
+    }
+
+    public boolean containsAll(Collection<JsonPrimitive> values) {
+        return this.values.containsAll(values);
+    }
+
+    /**
+     * Returns the ids that the values are masked against, or null if the values were collected outside of a
+     * compilation
+     */
+    ValueIds getIds() {
+        return ids;
+    }
+
+    /**
+     * Returns a mask with the bit of the ValueIds id of each value set, built once and rebuilt only if rules with
+     * new values have been tested since
+     */
+    long[] getMask() {
+        int size = ids.size();
+        Mask current = this.mask;
+        if (current.ids == size) {
+            return current.bits;
+        }
+
+        long[] mask = new long[0];
+        for (JsonPrimitive value : values) {
+            int id = ids.get(value);
+            if (id == -1) {
+                continue;
+            }
+            int word = id >>> 6;
+            if (word >= mask.length) {
+                mask = Arrays.copyOf(mask, word + 1);
+            }
+            mask[word] |= 1L << id;
+        }
+
+        this.mask = new Mask(size, mask);
+        return mask;
+    }
+
+    @Override
+    public Iterator<JsonPrimitive> iterator() {
+        return values.iterator();
+    }
+
+    public static FeatureValues of(JsonElement element) {
+        return of(element, null, UnaryOperator.identity());
+    }
+
+    /**
+     * Collect the primitive values of the element, passing each through the interner so that equal values
+     * found in different features can share a single instance
+     */
+    public static FeatureValues of(JsonElement element, ValueIds ids, UnaryOperator<JsonPrimitive> interner) {
+        Set<JsonPrimitive> values = new HashSet<>();
+        collect(element, values, interner);
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        return new FeatureValues(values, ids);
+    }
+
+    /**
+     * Collect the primitive values of the feature by streaming them out of its serializer, without building a
+     * json tree. Throws an UnsupportedOperationException if the feature's serializer tries to read back any of the
+     * values it has written.
+     */
+    public static FeatureValues of(ConfiguredFeature<?, ?> feature, ValueIds ids, UnaryOperator<JsonPrimitive> interner) {
+        Set<JsonPrimitive> values = new HashSet<>();
+        ValueOps ops = new ValueOps(primitive -> {
+            if (!values.contains(primitive)) {
+                values.add(interner.apply(primitive));
+            }
+        });
+        ops.complete(feature.serialize(ops).getValue());
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        return new FeatureValues(values, ids);
+    }
+
+    private static void collect(JsonElement element, Set<JsonPrimitive> values, UnaryOperator<JsonPrimitive> interner) {
+        if (element.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> e : element.getAsJsonObject().entrySet()) {
+                collect(e.getValue(), values, interner);
+            }
+        } else if (element.isJsonArray()) {
+            for (JsonElement e : element.getAsJsonArray()) {
+                collect(e, values, interner);
+            }
+        } else if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (!values.contains(primitive)) {
+                values.add(interner.apply(primitive));
+            }
+        }
+    }
+
+    private static class Mask {
+
+        private static final Mask NONE = new Mask(-1, new long[0]);
+
+        private final int ids;
+        private final long[] bits;
+
+        private Mask(int ids, long[] bits) {
+            this.ids = ids;
+            this.bits = bits;
+        }
+    }
+}
@@ -50,8 +50,16 @@ public class Rule {
                 '}';
     }
 
-    public Matcher createMatcher() {
-        return new Matcher(values);
+    public Collection<JsonPrimitive> getValues() {
+        return values;
+    }
+
+    /**
+     * A rule matches a feature containing all of its values. Note an empty rule matches any feature that
+     * contains at least one value.
+     */
+    public boolean test(FeatureValues values) {
+        return !values.isEmpty() && values.containsAll(this.values);
     }
 
     public static List<Rule> parseRules(JsonElement element) {
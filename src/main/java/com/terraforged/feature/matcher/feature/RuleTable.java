@@ -0,0 +1,238 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.matcher.feature;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A compiled form of a FeatureMatcher's rules. Each distinct value is assigned a bit and each rule a mask of the
+ * bits of its values. Searching a json tree sets the bit of each value found in a re-usable per-thread scratch
+ * mask, returning as soon as the mask completes any rule that contains the value.
+ *
+ * FeatureValues are tested against a second, sparse form of each rule's mask using the ids of the compilation's
+ * ValueIds, which only needs the words of the mask that the rule actually uses.
+ */
+public class RuleTable {
+
+    private static final ThreadLocal<long[][]> SCRATCH = ThreadLocal.withInitial(() -> new long[][]{new long[1]});
+    private static final int[] NO_RULES = new int[0];
+
+    private final int words;
+    private final boolean matchAny;
+    private final long[][] masks;
+    private final int[][] rulesByBit;
+    private final JsonPrimitive[][] values;
+    private final Map<JsonPrimitive, Integer> bits = new HashMap<>();
+
+    public RuleTable(List<Rule> rules) {
+        boolean matchAny = false;
+        this.values = new JsonPrimitive[rules.size()][];
+        for (int i = 0; i < rules.size(); i++) {
+            values[i] = rules.get(i).getValues().toArray(new JsonPrimitive[0]);
+            matchAny |= values[i].length == 0;
+            for (JsonPrimitive value : values[i]) {
+                bits.putIfAbsent(value, bits.size());
+            }
+        }
+
+        this.matchAny = matchAny;
+        this.words = Math.max(1, (bits.size() + 63) >>> 6);
+        this.masks = new long[rules.size()][words];
+
+        int[] counts = new int[bits.size()];
+        for (int rule = 0; rule < values.length; rule++) {
+            for (JsonPrimitive value : values[rule]) {
+                int bit = bits.get(value);
+                long mask = 1L << bit;
+                if ((masks[rule][bit >>> 6] & mask) == 0) {
+                    masks[rule][bit >>> 6] |= mask;
+                    counts[bit]++;
+                }
+            }
+        }
+
+        this.rulesByBit = new int[bits.size()][];
+        for (int bit = 0; bit < counts.length; bit++) {
+            rulesByBit[bit] = counts[bit] == 0 ? NO_RULES : new int[counts[bit]];
+            counts[bit] = 0;
+        }
+        for (int rule = 0; rule < masks.length; rule++) {
+            for (int bit = 0; bit < rulesByBit.length; bit++) {
+                if ((masks[rule][bit >>> 6] & (1L << bit)) != 0) {
+                    rulesByBit[bit][counts[bit]++] = rule;
+                }
+            }
+        }
+    }
+
+    public boolean test(JsonElement element) {
+        long[] scratch = getScratch(words);
+        return search(element, scratch);
+    }
+
+    public boolean test(FeatureValues values) {
+        if (values.isEmpty()) {
+            return false;
+        }
+        if (matchAny) {
+            return true;
+        }
+        ValueIds ids = values.getIds();
+        if (ids == null) {
+            long[] scratch = getScratch(words);
+            for (JsonPrimitive value : values) {
+                if (test(value, scratch)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Masks masks = ids.getMasks(this);
+        long[] mask = values.getMask();
+        for (int rule = 0; rule < masks.words.length; rule++) {
+            if (covers(mask, masks.words[rule], masks.masks[rule])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Masks createMasks(ValueIds ids) {
+        int[][] words = new int[values.length][];
+        long[][] masks = new long[values.length][];
+        for (int rule = 0; rule < values.length; rule++) {
+            Map<Integer, Long> mask = new TreeMap<>();
+            for (JsonPrimitive value : values[rule]) {
+                int id = ids.getOrCreate(value);
+                mask.merge(id >>> 6, 1L << id, (a, b) -> a | b);
+            }
+            words[rule] = new int[mask.size()];
+            masks[rule] = new long[mask.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : mask.entrySet()) {
+                words[rule][i] = entry.getKey();
+                masks[rule][i] = entry.getValue();
+                i++;
+            }
+        }
+        return new Masks(words, masks);
+    }
+
+    private boolean search(JsonElement element, long[] scratch) {
+        if (element.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> e : element.getAsJsonObject().entrySet()) {
+                if (search(e.getValue(), scratch)) {
+                    return true;
+                }
+            }
+        } else if (element.isJsonArray()) {
+            for (JsonElement e : element.getAsJsonArray()) {
+                if (search(e, scratch)) {
+                    return true;
+                }
+            }
+        } else if (element.isJsonPrimitive()) {
+            return test(element.getAsJsonPrimitive(), scratch);
+        }
+        return false;
+    }
+
+    private boolean test(JsonPrimitive value, long[] scratch) {
+        if (matchAny) {
+            return true;
+        }
+
+        Integer index = bits.get(value);
+        if (index == null) {
+            return false;
+        }
+
+        int bit = index;
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        if ((scratch[word] & mask) != 0) {
+            return false;
+        }
+
+        scratch[word] |= mask;
+        for (int rule : rulesByBit[bit]) {
+            if (isComplete(masks[rule], scratch)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isComplete(long[] rule, long[] scratch) {
+        for (int i = 0; i < words; i++) {
+            if ((scratch[i] & rule[i]) != rule[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean covers(long[] values, int[] words, long[] masks) {
+        for (int i = 0; i < words.length; i++) {
+            int word = words[i];
+            if (word >= values.length || (values[word] & masks[i]) != masks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] getScratch(int words) {
+        long[][] holder = SCRATCH.get();
+        long[] scratch = holder[0];
+        if (scratch.length < words) {
+            scratch = new long[words];
+            holder[0] = scratch;
+        } else {
+            for (int i = 0; i < words; i++) {
+                scratch[i] = 0L;
+            }
+        }
+        return scratch;
+    }
+
+    static final class Masks {
+
+        private final int[][] words;
+        private final long[][] masks;
+
+        private Masks(int[][] words, long[][] masks) {
+            this.words = words;
+            this.masks = masks;
+        }
+    }
+}
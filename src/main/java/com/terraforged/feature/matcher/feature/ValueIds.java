@@ -0,0 +1,82 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.matcher.feature;
+
+import com.google.gson.JsonPrimitive;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a bit index to every distinct value used by the Rules tested during a compilation so that FeatureValues
+ * can be reduced to a single bit mask that is shared by all RuleTables. Held by the CompileCache so that the ids,
+ * and the rule masks built from them, are dropped along with it.
+ */
+public final class ValueIds {
+
+    private final Map<JsonPrimitive, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<RuleTable, RuleTable.Masks> masks = new ConcurrentHashMap<>();
+    private volatile int size = 0;
+
+    /**
+     * Returns the number of ids assigned so far. Only advanced after the id's value has been added so a mask built
+     * for a given size contains every value that has an id below it.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of the value, or -1 if no rule uses it
+     */
+    int get(JsonPrimitive value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    int getOrCreate(JsonPrimitive value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ids) {
+            id = ids.get(value);
+            if (id == null) {
+                id = size;
+                ids.put(value, id);
+                size = id + 1;
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the rule masks of the table in terms of these ids, built on first use
+     */
+    RuleTable.Masks getMasks(RuleTable table) {
+        return masks.computeIfAbsent(table, t -> t.createMasks(this));
+    }
+}
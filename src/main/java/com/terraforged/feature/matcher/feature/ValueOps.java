@@ -0,0 +1,175 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.matcher.feature;
+
+import com.google.gson.JsonPrimitive;
+import com.mojang.datafixers.types.DynamicOps;
+import com.mojang.datafixers.types.Type;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A write-only DynamicOps that streams the primitive values of a serialized object to a sink instead of building
+ * a tree. Primitives are created as JsonPrimitives (the same as JsonOps) but are only passed to the sink once they
+ * are placed into a map (as a value, never as a key) or a list, so the sink receives the same values that would
+ * be found by walking the equivalent JsonElement.
+ *
+ * Maps & lists are not retained, so any attempt to read from a value throws an UnsupportedOperationException and
+ * callers should fall back to serializing with JsonOps. Key paths are not tracked.
+ */
+public class ValueOps implements DynamicOps<Object> {
+
+    // the result of ops.empty()
+    private static final Object EMPTY = new Object();
+    // a map or list whose values have already been passed to the sink
+    private static final Object CONTAINER = new Object();
+
+    private final Consumer<JsonPrimitive> sink;
+
+    public ValueOps(Consumer<JsonPrimitive> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Pass the root of a serialized object to the sink if it is a primitive
+     */
+    public void complete(Object root) {
+        accept(root);
+    }
+
+    @Override
+    public Object empty() {
+        return EMPTY;
+    }
+
+    @Override
+    public Type<?> getType(Object input) {
+        throw unsupported("getType");
+    }
+
+    @Override
+    public Optional<Number> getNumberValue(Object input) {
+        throw unsupported("getNumberValue");
+    }
+
+    @Override
+    public Object createNumeric(Number i) {
+        return new JsonPrimitive(i);
+    }
+
+    @Override
+    public Optional<Boolean> getBooleanValue(Object input) {
+        throw unsupported("getBooleanValue");
+    }
+
+    @Override
+    public Object createBoolean(boolean value) {
+        return new JsonPrimitive(value);
+    }
+
+    @Override
+    public Optional<String> getStringValue(Object input) {
+        throw unsupported("getStringValue");
+    }
+
+    @Override
+    public Object createString(String value) {
+        return new JsonPrimitive(value);
+    }
+
+    @Override
+    public Object mergeInto(Object input, Object value) {
+        // JsonOps ignores merges into primitives
+        if (input instanceof JsonPrimitive) {
+            return input;
+        }
+        accept(value);
+        return CONTAINER;
+    }
+
+    @Override
+    public Object mergeInto(Object input, Object key, Object value) {
+        if (input instanceof JsonPrimitive) {
+            return input;
+        }
+        accept(value);
+        return CONTAINER;
+    }
+
+    @Override
+    public Object merge(Object first, Object second) {
+        accept(first);
+        accept(second);
+        return CONTAINER;
+    }
+
+    @Override
+    public Optional<Map<Object, Object>> getMapValues(Object input) {
+        throw unsupported("getMapValues");
+    }
+
+    @Override
+    public Object createMap(Map<Object, Object> map) {
+        for (Object value : map.values()) {
+            accept(value);
+        }
+        return CONTAINER;
+    }
+
+    @Override
+    public Optional<Stream<Object>> getStream(Object input) {
+        throw unsupported("getStream");
+    }
+
+    @Override
+    public Object createList(Stream<Object> input) {
+        input.forEach(this::accept);
+        return CONTAINER;
+    }
+
+    @Override
+    public Object remove(Object input, String key) {
+        throw unsupported("remove");
+    }
+
+    @Override
+    public String toString() {
+        return "Values";
+    }
+
+    private void accept(Object value) {
+        if (value instanceof JsonPrimitive) {
+            sink.accept((JsonPrimitive) value);
+        }
+    }
+
+    private static UnsupportedOperationException unsupported(String op) {
+        return new UnsupportedOperationException("ValueOps does not support " + op);
+    }
+}
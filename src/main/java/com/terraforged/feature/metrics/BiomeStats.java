@@ -0,0 +1,91 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.metrics;
+
+import com.terraforged.feature.biome.BiomeFeatures;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+import net.minecraft.world.gen.feature.DecoratedFeatureConfig;
+
+/**
+ * Holds the per-chunk decoration time of a biome along with the stats of each of its compiled features, indexed
+ * the same as the BiomeFeatures they were created for.
+ */
+public class BiomeStats {
+
+    private static final GenerationStep.Feature[] STAGES = GenerationStep.Feature.values();
+
+    private final BiomeFeatures source;
+    private final FeatureStats total;
+    private final FeatureStats[] features;
+
+    public BiomeStats(Biome biome, BiomeFeatures source) {
+        String name = String.valueOf(Registry.BIOME.getId(biome));
+        this.source = source;
+        this.total = new FeatureStats(name);
+        this.features = new FeatureStats[source.size()];
+        for (int stage = 0; stage < BiomeFeatures.STAGES; stage++) {
+            for (int i = source.getStart(stage); i < source.getEnd(stage); i++) {
+                String label = name + "/" + STAGES[stage].name().toLowerCase() + "/" + source.getOrdinal(i) + ":" + getId(source.getFeature(i));
+                features[i] = new FeatureStats(label);
+            }
+        }
+    }
+
+    public boolean isFor(BiomeFeatures features) {
+        return source == features;
+    }
+
+    public FeatureStats getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return features.length;
+    }
+
+    public FeatureStats getFeature(int index) {
+        return features[index];
+    }
+
+    public void reset() {
+        total.reset();
+        for (FeatureStats stats : features) {
+            stats.reset();
+        }
+    }
+
+    // decorated features are identified by the feature they wrap
+    private static Identifier getId(ConfiguredFeature<?, ?> feature) {
+        while (feature.config instanceof DecoratedFeatureConfig) {
+            feature = ((DecoratedFeatureConfig) feature.config).feature;
+        }
+        return Registry.FEATURE.getId(feature.feature);
+    }
+}
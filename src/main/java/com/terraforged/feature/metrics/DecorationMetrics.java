@@ -0,0 +1,226 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.metrics;
+
+import com.terraforged.feature.DecorationContext;
+import com.terraforged.feature.FeatureManager;
+import com.terraforged.feature.biome.BiomeFeatures;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkRandom;
+import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.chunk.ChunkGenerator;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in decoration timings grouped per generation stage, per biome and per compiled feature. Only one in every
+ * sampleRate chunks (per decorating thread) is timed so that the overhead can be kept low under production load.
+ */
+public class DecorationMetrics implements DecorationMetricsMXBean {
+
+    public static final DecorationMetrics NONE = new DecorationMetrics(0);
+
+    private static final String DOMAIN = "com.terraforged.feature";
+    private static final GenerationStep.Feature[] STAGES = GenerationStep.Feature.values();
+
+    private final int sampleRate;
+    private final FeatureStats[] stages;
+    private final LongAdder chunks = new LongAdder();
+    private final Map<Biome, BiomeStats> biomes = new ConcurrentHashMap<>();
+
+    private ObjectName objectName = null;
+
+    public DecorationMetrics(int sampleRate) {
+        this.sampleRate = Math.max(0, sampleRate);
+        this.stages = new FeatureStats[STAGES.length];
+        for (GenerationStep.Feature stage : STAGES) {
+            stages[stage.ordinal()] = new FeatureStats(stage.name().toLowerCase());
+        }
+    }
+
+    public boolean isEnabled() {
+        return sampleRate > 0;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public long getSampledChunks() {
+        return chunks.sum();
+    }
+
+    public FeatureStats getStage(GenerationStep.Feature stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public BiomeStats getBiome(Biome biome) {
+        return biomes.get(biome);
+    }
+
+    @Override
+    public List<StatsSnapshot> getStages() {
+        List<StatsSnapshot> list = new ArrayList<>(stages.length);
+        for (FeatureStats stats : stages) {
+            list.add(stats.snapshot());
+        }
+        return list;
+    }
+
+    @Override
+    public List<StatsSnapshot> getBiomes() {
+        List<StatsSnapshot> list = new ArrayList<>(biomes.size());
+        for (BiomeStats stats : biomes.values()) {
+            list.add(stats.getTotal().snapshot());
+        }
+        list.sort(Comparator.comparingLong(StatsSnapshot::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * Returns the features with the highest total time across all biomes
+     */
+    @Override
+    public List<StatsSnapshot> getTopFeatures(int count) {
+        List<StatsSnapshot> list = new ArrayList<>();
+        for (BiomeStats stats : biomes.values()) {
+            for (int i = 0; i < stats.size(); i++) {
+                FeatureStats feature = stats.getFeature(i);
+                if (feature.getInvocations() > 0) {
+                    list.add(feature.snapshot());
+                }
+            }
+        }
+        list.sort(Comparator.comparingLong(StatsSnapshot::getTotalNanos).reversed());
+        return list.subList(0, Math.min(Math.max(0, count), list.size()));
+    }
+
+    @Override
+    public void reset() {
+        chunks.reset();
+        for (FeatureStats stats : stages) {
+            stats.reset();
+        }
+        for (BiomeStats stats : biomes.values()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Timed equivalent of the FeatureDecorator loop
+     */
+    public void decorate(ChunkGenerator<?> generator, IWorld region, Chunk chunk, Biome biome, BlockPos pos, BiomeFeatures features, DecorationContext context, long populationSeed) {
+        ChunkRandom random = context.getRandom();
+        BiomeStats biomeStats = getBiomeStats(biome, features);
+
+        long chunkTime = 0L;
+        boolean chunkPlaced = false;
+        for (int stage = 0; stage < BiomeFeatures.STAGES; stage++) {
+            long stageTime = 0L;
+            boolean stagePlaced = false;
+
+            int start = features.getStart(stage);
+            int end = features.getEnd(stage);
+            for (int i = start; i < end; i++) {
+                random.setDecoratorSeed(populationSeed, features.getOrdinal(i), stage);
+
+                long time = System.nanoTime();
+                if (context.test(features, i)) {
+                    boolean placed = features.getFeature(i).generate(region, generator, random, pos);
+                    long duration = System.nanoTime() - time;
+                    context.getChunkContext().invalidateHeightmaps();
+                    biomeStats.getFeature(i).record(duration, placed);
+                    stagePlaced |= placed;
+                    stageTime += duration;
+                } else {
+                    stageTime += System.nanoTime() - time;
+                }
+            }
+
+            stages[stage].record(stageTime, stagePlaced);
+            chunkPlaced |= stagePlaced;
+            chunkTime += stageTime;
+        }
+
+        biomeStats.getTotal().record(chunkTime, chunkPlaced);
+        chunks.increment();
+    }
+
+    /**
+     * Register this instance with the platform MBeanServer under the given name
+     */
+    public synchronized void register(String name) {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=DecorationMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (Throwable t) {
+            FeatureManager.LOG.warn("Unable to register decoration metrics MBean: {}", name, t);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Throwable t) {
+            FeatureManager.LOG.warn("Unable to unregister decoration metrics MBean: {}", objectName, t);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    private BiomeStats getBiomeStats(Biome biome, BiomeFeatures features) {
+        BiomeStats stats = biomes.get(biome);
+        if (stats != null && stats.isFor(features)) {
+            return stats;
+        }
+        // create or replace atomically so that concurrent first samples share the same stats
+        return biomes.compute(biome, (b, current) -> current != null && current.isFor(features) ? current : new BiomeStats(b, features));
+    }
+}
@@ -23,27 +23,21 @@
  * SOFTWARE.
  */
 
-package com.terraforged.feature.matcher.feature;
+package com.terraforged.feature.metrics;
 
-import com.google.gson.JsonPrimitive;
+import java.util.List;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+public interface DecorationMetricsMXBean {
 
-public class Matcher {
+    int getSampleRate();
 
-    private final Set<JsonPrimitive> set;
+    long getSampledChunks();
 
-    Matcher(Collection<JsonPrimitive> set) {
-        this.set = new HashSet<>(set);
-    }
+    List<StatsSnapshot> getStages();
 
-    public boolean complete() {
-        return set.isEmpty();
-    }
+    List<StatsSnapshot> getBiomes();
 
-    public void test(JsonPrimitive value) {
-        set.remove(value);
-    }
+    List<StatsSnapshot> getTopFeatures(int count);
+
+    void reset();
 }
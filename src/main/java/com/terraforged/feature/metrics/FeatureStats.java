@@ -0,0 +1,88 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings & placement counts for a single feature, biome or generation stage
+ */
+public class FeatureStats {
+
+    private final String name;
+    private final Histogram time = new Histogram();
+    private final LongAdder placed = new LongAdder();
+
+    public FeatureStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Histogram getTime() {
+        return time;
+    }
+
+    public long getInvocations() {
+        return time.getCount();
+    }
+
+    public long getPlaced() {
+        return placed.sum();
+    }
+
+    public double getSuccessRate() {
+        long invocations = getInvocations();
+        return invocations == 0 ? 0 : getPlaced() / (double) invocations;
+    }
+
+    public void record(long nanos, boolean success) {
+        time.record(nanos);
+        if (success) {
+            placed.increment();
+        }
+    }
+
+    public void reset() {
+        time.reset();
+        placed.reset();
+    }
+
+    public StatsSnapshot snapshot() {
+        return new StatsSnapshot(
+                name,
+                getInvocations(),
+                getPlaced(),
+                time.getTotal(),
+                time.getMean(),
+                time.getPercentile(0.5),
+                time.getPercentile(0.99),
+                time.getMax()
+        );
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable copy of a FeatureStats, exposed as CompositeData through the DecorationMetricsMXBean
+ */
+public class StatsSnapshot {
+
+    private final String name;
+    private final long invocations;
+    private final long placed;
+    private final long totalNanos;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({"name", "invocations", "placed", "totalNanos", "meanNanos", "p50Nanos", "p99Nanos", "maxNanos"})
+    public StatsSnapshot(String name, long invocations, long placed, long totalNanos, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+        this.name = name;
+        this.invocations = invocations;
+        this.placed = placed;
+        this.totalNanos = totalNanos;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getPlaced() {
+        return placed;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: invocations=%d, placed=%d, total=%.3fms, mean=%dns, p50=%dns, p99=%dns, max=%dns",
+                name, invocations, placed, totalNanos / 1_000_000D, meanNanos, p50Nanos, p99Nanos, maxNanos
+        );
+    }
+}
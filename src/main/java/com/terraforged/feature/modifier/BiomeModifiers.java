@@ -0,0 +1,81 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.modifier;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * The indices of the modifiers in each of the sorted ModifierLists whose biome matcher accepts a given biome.
+ * Biomes that are accepted by the same modifiers have equal BiomeModifiers.
+ */
+public class BiomeModifiers {
+
+    private final BitSet replacers;
+    private final BitSet transformers;
+    private final BitSet predicates;
+
+    BiomeModifiers(BitSet replacers, BitSet transformers, BitSet predicates) {
+        this.replacers = replacers;
+        this.transformers = transformers;
+        this.predicates = predicates;
+    }
+
+    public boolean isEmpty() {
+        return replacers.isEmpty() && transformers.isEmpty() && predicates.isEmpty();
+    }
+
+    BitSet getReplacers() {
+        return replacers;
+    }
+
+    BitSet getTransformers() {
+        return transformers;
+    }
+
+    BitSet getPredicates() {
+        return predicates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BiomeModifiers that = (BiomeModifiers) o;
+        return replacers.equals(that.replacers)
+                && transformers.equals(that.transformers)
+                && predicates.equals(that.predicates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(replacers, transformers, predicates);
+    }
+}
@@ -51,6 +51,7 @@ public class FeatureModifierLoader {
 
         FeatureModifiers modifiers = new FeatureModifiers();
         DataHelper.iterateJson("features", (location, element) -> {
+            modifiers.addConfig(location, element);
             if (element.isJsonObject()) {
                 if (load(location, element.getAsJsonObject(), modifiers)) {
                     FeatureManager.LOG.debug(LOAD, " Loaded modifier config: {}", location);
@@ -29,25 +29,42 @@ import com.google.gson.JsonElement;
 import com.terraforged.feature.FeatureManager;
 import com.terraforged.feature.FeatureSerializer;
 import com.terraforged.feature.biome.BiomeFeature;
+import com.terraforged.feature.compiler.CompileCache;
 import com.terraforged.feature.matcher.dynamic.DynamicList;
 import com.terraforged.feature.matcher.dynamic.DynamicPredicate;
+import com.terraforged.feature.matcher.feature.FeatureValues;
 import com.terraforged.feature.predicate.FeaturePredicate;
 import com.terraforged.feature.transformer.FeatureReplacer;
 import com.terraforged.feature.transformer.FeatureTransformer;
 import com.terraforged.feature.util.FeatureDebugger;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.gen.feature.ConfiguredFeature;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 public class FeatureModifiers {
 
+    private final List<String> configs = new ArrayList<>();
     private final DynamicList dynamics = new DynamicList();
     private final ModifierList<FeatureReplacer> replacers = new ModifierList<>();
     private final ModifierList<FeaturePredicate> predicates = new ModifierList<>();
     private final ModifierList<FeatureTransformer> transformers = new ModifierList<>();
 
+    /**
+     * Record the raw json of a modifier config that has been loaded from a datapack
+     */
+    public void addConfig(Identifier location, JsonElement config) {
+        configs.add(location + "=" + config);
+    }
+
+    public List<String> getConfigs() {
+        return configs;
+    }
+
     public DynamicList getDynamic() {
         return dynamics;
     }
@@ -70,22 +87,52 @@ public class FeatureModifiers {
         transformers.sort();
     }
 
+    /**
+     * Filter the sorted modifier lists down to those that apply to the biome
+     */
+    public BiomeModifiers getBiomeModifiers(Biome biome) {
+        return new BiomeModifiers(
+                replacers.getApplicable(biome),
+                transformers.getApplicable(biome),
+                predicates.getApplicable(biome)
+        );
+    }
+
     public BiomeFeature getFeature(Biome biome, ConfiguredFeature<?, ?> feature) {
+        return getFeature(biome, feature, new CompileCache());
+    }
+
+    public BiomeFeature getFeature(Biome biome, ConfiguredFeature<?, ?> feature, CompileCache cache) {
+        return getFeature(biome, feature, cache, new ModifierRecord());
+    }
+
+    public BiomeFeature getFeature(Biome biome, ConfiguredFeature<?, ?> feature, CompileCache cache, ModifierRecord record) {
         try {
-            JsonElement element = FeatureSerializer.serialize(feature);
-            ConfiguredFeature<?, ?> result = getFeature(biome, feature, element);
-            if (result != feature) {
-                // re-serialize if feature has been changed
-                element = FeatureSerializer.serialize(result);
+            BiomeModifiers applicable = cache.getBiomeModifiers(biome, this);
+            if (applicable.isEmpty()) {
+                // no need to serialize when nothing can apply
+                FeaturePredicate predicate = getPredicate(feature);
+                return new BiomeFeature(predicate == null ? FeaturePredicate.ALLOW : predicate, feature);
+            }
+
+            CompileCache.Compiled compiled = cache.getCompiled(applicable, feature);
+            if (compiled != null) {
+                record.set(compiled.getRecord());
+                return compiled.getFeature();
             }
 
+            ConfiguredFeature<?, ?> result = getFeature(biome, feature, applicable, cache, record);
+
             FeaturePredicate predicate = getPredicate(result);
             if (predicate == null) {
-                predicate = getPredicate(biome, element);
+                predicate = getPredicate(cache.getValues(result), applicable, record);
             }
 
-            return new BiomeFeature(predicate, result);
+            compiled = cache.putCompiled(applicable, feature, new BiomeFeature(predicate, result), record);
+            record.set(compiled.getRecord());
+            return compiled.getFeature();
         } catch (Throwable t) {
+            record.invalidate();
             String name = String.valueOf(Registry.BIOME.getId(biome));
             List<String> errors = FeatureDebugger.getErrors(feature);
             FeatureManager.LOG.debug(FeatureSerializer.MARKER, "Unable to serialize feature in biome: {}", name);
@@ -100,18 +147,67 @@ public class FeatureModifiers {
         return new BiomeFeature(FeaturePredicate.ALLOW, feature);
     }
 
-    private ConfiguredFeature<?, ?> getFeature(Biome biome, ConfiguredFeature<?, ?> feature, JsonElement element) {
-        for (Modifier<FeatureReplacer> modifier : replacers) {
-            if (modifier.getMatcher().test(biome, element)) {
+    /**
+     * Reproduce the result of a previous compilation of the feature from its ModifierRecord without testing
+     * any of the modifier matchers
+     */
+    public BiomeFeature replay(Biome biome, ConfiguredFeature<?, ?> feature, CompileCache cache, ModifierRecord record) {
+        if (!record.isValid()) {
+            return new BiomeFeature(FeaturePredicate.ALLOW, feature);
+        }
+
+        try {
+            ConfiguredFeature<?, ?> result = replayFeature(biome, feature, cache, record);
+
+            FeaturePredicate predicate = getPredicate(result);
+            if (predicate == null) {
+                predicate = FeaturePredicate.ALLOW;
+                if (record.getPredicate() != ModifierRecord.NONE) {
+                    predicate = predicates.get(record.getPredicate()).getModifier();
+                }
+            }
+
+            return new BiomeFeature(predicate, result);
+        } catch (Throwable t) {
+            FeatureManager.LOG.debug(FeatureSerializer.MARKER, "Unable to replay feature in biome: {}", Registry.BIOME.getId(biome), t);
+        }
+        return new BiomeFeature(FeaturePredicate.ALLOW, feature);
+    }
+
+    private ConfiguredFeature<?, ?> getFeature(Biome biome, ConfiguredFeature<?, ?> feature, BiomeModifiers applicable, CompileCache cache, ModifierRecord record) {
+        FeatureValues values = cache.getValues(feature);
+        BitSet candidates = getCandidates(replacers, values, applicable.getReplacers());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Modifier<FeatureReplacer> modifier = replacers.get(i);
+            if (modifier.getMatcher().getFeatureMatcher().test(values)) {
+                record.setReplacer(i);
                 return modifier.getModifier().get();
             }
         }
 
+        // the json tree is only needed once a transformer has to rewrite the feature. Transformers are applied one
+        // at a time rather than fused because each match is tested against the output of the previous transformer,
+        // so the chain is only known once the loop completes. replay() fuses the recorded chain instead
+        JsonElement element = null;
         boolean modified = false;
-        for (Modifier<FeatureTransformer> modifier : transformers) {
-            if (modifier.getMatcher().test(biome, element)) {
+        candidates = getCandidates(transformers, values, applicable.getTransformers());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Modifier<FeatureTransformer> modifier = transformers.get(i);
+            if (modifier.getMatcher().getFeatureMatcher().test(values)) {
+                if (element == null) {
+                    element = cache.serialize(feature);
+                }
+                JsonElement result = modifier.getModifier().apply(element);
+                if (result == element) {
+                    // transformer matched but had nothing to change
+                    continue;
+                }
                 modified = true;
-                element = modifier.getModifier().apply(element);
+                record.addTransformer(i);
+                element = result;
+                values = cache.getValues(element);
+                // the transformed feature may now contain the key values of later modifiers
+                candidates = getCandidates(transformers, values, applicable.getTransformers());
             }
         }
 
@@ -119,8 +215,33 @@ public class FeatureModifiers {
             return feature;
         }
 
+        return deserialize(biome, feature, element, cache);
+    }
+
+    private ConfiguredFeature<?, ?> replayFeature(Biome biome, ConfiguredFeature<?, ?> feature, CompileCache cache, ModifierRecord record) {
+        if (record.getReplacer() != ModifierRecord.NONE) {
+            return replacers.get(record.getReplacer()).getModifier().get();
+        }
+
+        if (record.getTransformers().length == 0) {
+            return feature;
+        }
+
+        // the full chain is known up front so can be applied in a single pass
+        JsonElement source = cache.serialize(feature);
+        FeatureTransformer transformer = cache.getFusedTransformer(record.getTransformers(), i -> transformers.get(i).getModifier());
+        JsonElement element = transformer.apply(source);
+
+        if (element == source) {
+            return feature;
+        }
+
+        return deserialize(biome, feature, element, cache);
+    }
+
+    private ConfiguredFeature<?, ?> deserialize(Biome biome, ConfiguredFeature<?, ?> feature, JsonElement element, CompileCache cache) {
         try {
-            return FeatureSerializer.deserializeUnchecked(element);
+            return cache.deserialize(element);
         } catch (Throwable t) {
             FeatureManager.LOG.warn(FeatureSerializer.MARKER, "Unable to deserialize biome feature: {}", biome);
             t.printStackTrace();
@@ -137,12 +258,21 @@ public class FeatureModifiers {
         return null;
     }
 
-    private FeaturePredicate getPredicate(Biome biome, JsonElement element) {
-        for (Modifier<FeaturePredicate> modifier : predicates) {
-            if (modifier.getMatcher().test(biome, element)) {
+    private FeaturePredicate getPredicate(FeatureValues values, BiomeModifiers applicable, ModifierRecord record) {
+        BitSet candidates = getCandidates(predicates, values, applicable.getPredicates());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Modifier<FeaturePredicate> modifier = predicates.get(i);
+            if (modifier.getMatcher().getFeatureMatcher().test(values)) {
+                record.setPredicate(i);
                 return modifier.getModifier();
             }
         }
         return FeaturePredicate.ALLOW;
     }
+
+    private static BitSet getCandidates(ModifierList<?> list, FeatureValues values, BitSet applicable) {
+        BitSet candidates = list.getCandidates(values);
+        candidates.and(applicable);
+        return candidates;
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.modifier;
+
+import com.google.gson.JsonPrimitive;
+import com.terraforged.feature.matcher.feature.FeatureMatcher;
+import com.terraforged.feature.matcher.feature.FeatureValues;
+import com.terraforged.feature.matcher.feature.Rule;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps a single required value of each rule to the modifiers that the rule belongs to so that only modifiers
+ * which could match a feature need to be tested against it. Each rule is keyed by the value that occurs in the
+ * fewest rules of the list, on the assumption that it is also the least common value in features.
+ */
+class ModifierIndex {
+
+    private final int size;
+    private final BitSet always = new BitSet();
+    private final Map<JsonPrimitive, BitSet> index = new HashMap<>();
+
+    ModifierIndex(List<? extends Modifier<?>> modifiers) {
+        this.size = modifiers.size();
+
+        Map<JsonPrimitive, Integer> frequency = new HashMap<>();
+        for (Modifier<?> modifier : modifiers) {
+            for (Rule rule : modifier.getMatcher().getFeatureMatcher().getRules()) {
+                for (JsonPrimitive value : rule.getValues()) {
+                    frequency.merge(value, 1, Integer::sum);
+                }
+            }
+        }
+
+        for (int i = 0; i < modifiers.size(); i++) {
+            FeatureMatcher matcher = modifiers.get(i).getMatcher().getFeatureMatcher();
+            if (matcher == FeatureMatcher.ANY) {
+                always.set(i);
+                continue;
+            }
+
+            for (Rule rule : matcher.getRules()) {
+                JsonPrimitive key = getRarest(rule, frequency);
+                if (key == null) {
+                    // empty rules match any feature with at least one value
+                    always.set(i);
+                    break;
+                }
+                index.computeIfAbsent(key, k -> new BitSet()).set(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the indices of the modifiers that could match a feature with the given values
+     */
+    BitSet getCandidates(FeatureValues values) {
+        BitSet candidates = (BitSet) always.clone();
+        if (values.size() < index.size()) {
+            for (JsonPrimitive value : values) {
+                BitSet modifiers = index.get(value);
+                if (modifiers != null) {
+                    candidates.or(modifiers);
+                }
+            }
+        } else {
+            for (Map.Entry<JsonPrimitive, BitSet> entry : index.entrySet()) {
+                if (values.contains(entry.getKey())) {
+                    candidates.or(entry.getValue());
+                }
+            }
+        }
+        return candidates;
+    }
+
+    static BitSet all(int size) {
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        return all;
+    }
+
+    private static JsonPrimitive getRarest(Rule rule, Map<JsonPrimitive, Integer> frequency) {
+        JsonPrimitive rarest = null;
+        int min = Integer.MAX_VALUE;
+        for (JsonPrimitive value : rule.getValues()) {
+            int count = frequency.getOrDefault(value, 0);
+            if (count < min) {
+                min = count;
+                rarest = value;
+            }
+        }
+        return rarest;
+    }
+}
@@ -28,8 +28,11 @@ package com.terraforged.feature.modifier;
 import com.terraforged.feature.matcher.BiomeFeatureMatcher;
 import com.terraforged.feature.matcher.biome.BiomeMatcher;
 import com.terraforged.feature.matcher.feature.FeatureMatcher;
+import com.terraforged.feature.matcher.feature.FeatureValues;
+import net.minecraft.world.biome.Biome;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -37,13 +40,47 @@ import java.util.List;
 public class ModifierList<T> implements Iterable<Modifier<T>> {
 
     private List<Modifier<T>> list = Collections.emptyList();
+    private ModifierIndex index = null;
 
     public int size() {
         return list.size();
     }
 
+    public Modifier<T> get(int index) {
+        return list.get(index);
+    }
+
+    /**
+     * Sort the modifiers into priority order and build the index used by getCandidates
+     */
     public void sort() {
         Collections.sort(list);
+        index = new ModifierIndex(list);
+    }
+
+    /**
+     * Returns the indices of the modifiers that could match a feature with the given values, in priority order.
+     * All modifiers are returned if the list has not been sorted since it was last modified.
+     */
+    public BitSet getCandidates(FeatureValues values) {
+        ModifierIndex index = this.index;
+        if (index == null) {
+            return ModifierIndex.all(list.size());
+        }
+        return index.getCandidates(values);
+    }
+
+    /**
+     * Returns the indices of the modifiers whose biome matcher accepts the biome
+     */
+    public BitSet getApplicable(Biome biome) {
+        BitSet applicable = new BitSet(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getMatcher().getBiomeMatcher().test(biome)) {
+                applicable.set(i);
+            }
+        }
+        return applicable;
     }
 
     @Override
@@ -65,5 +102,6 @@ public class ModifierList<T> implements Iterable<Modifier<T>> {
             list = new ArrayList<>();
         }
         list.add(new Modifier<>(matcher, modifier));
+        index = null;
     }
 }
@@ -0,0 +1,98 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.modifier;
+
+import java.util.Arrays;
+
+/**
+ * Records which modifiers (by their index in the sorted ModifierLists) were applied to a feature during
+ * compilation so that the same result can be reproduced without re-running the matchers.
+ */
+public class ModifierRecord {
+
+    public static final int NONE = -1;
+
+    private static final int[] EMPTY = new int[0];
+
+    private boolean valid = true;
+    private int replacer = NONE;
+    private int predicate = NONE;
+    private int[] transformers = EMPTY;
+
+    public ModifierRecord() {
+
+    }
+
+    public ModifierRecord(boolean valid, int replacer, int[] transformers, int predicate) {
+        this.valid = valid;
+        this.replacer = replacer;
+        this.predicate = predicate;
+        this.transformers = transformers;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getReplacer() {
+        return replacer;
+    }
+
+    public int getPredicate() {
+        return predicate;
+    }
+
+    public int[] getTransformers() {
+        return transformers;
+    }
+
+    void set(ModifierRecord other) {
+        valid = other.valid;
+        replacer = other.replacer;
+        predicate = other.predicate;
+        transformers = other.transformers;
+    }
+
+    void invalidate() {
+        valid = false;
+        replacer = NONE;
+        predicate = NONE;
+        transformers = EMPTY;
+    }
+
+    void setReplacer(int index) {
+        replacer = index;
+    }
+
+    void setPredicate(int index) {
+        predicate = index;
+    }
+
+    void addTransformer(int index) {
+        transformers = Arrays.copyOf(transformers, transformers.length + 1);
+        transformers[transformers.length - 1] = index;
+    }
+}
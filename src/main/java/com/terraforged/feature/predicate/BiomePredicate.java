@@ -7,6 +7,7 @@ import net.minecraft.world.chunk.Chunk;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 public class BiomePredicate implements FeaturePredicate {
 
@@ -16,6 +17,17 @@ public class BiomePredicate implements FeaturePredicate {
         this.biomes = biomes;
     }
 
+    @Override
+    public String toString() {
+        Set<String> names = new TreeSet<>();
+        for (Biome biome : biomes) {
+            names.add(String.valueOf(Registry.BIOME.getId(biome)));
+        }
+        return "BiomePredicate{" +
+                "biomes=" + names +
+                '}';
+    }
+
     @Override
     public boolean test(Chunk chunk, Biome biome) {
         BiomeArray biomes = chunk.getBiomeArray();
@@ -33,6 +45,30 @@ public class BiomePredicate implements FeaturePredicate {
         return true;
     }
 
+    @Override
+    public boolean test(ChunkContext context) {
+        if (!context.hasBiomes()) {
+            return false;
+        }
+        for (int i = 0; i < context.getBiomeSampleCount(); i++) {
+            if (!biomes.contains(context.getBiomeSample(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Dependency getDependency() {
+        return Dependency.CHUNK_BIOMES;
+    }
+
+    @Override
+    public FeaturePredicate resolve(Biome biome) {
+        // the sampled biomes can differ from the decorated biome so only an empty set can be resolved
+        return biomes.isEmpty() ? DENY : this;
+    }
+
     public static BiomePredicate oceans() {
         return BiomePredicate.of(Biome.Category.OCEAN);
     }
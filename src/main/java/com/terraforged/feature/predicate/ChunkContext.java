@@ -0,0 +1,180 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.predicate;
+
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.source.BiomeArray;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * The chunk being decorated along with summaries of its biome & heightmap data. Summaries are computed on first
+ * use and shared by every predicate tested against the chunk.
+ *
+ * Heightmap summaries are discarded whenever a feature is generated as features may modify the heightmaps.
+ */
+public class ChunkContext {
+
+    private static final Heightmap.Type[] HEIGHTMAPS = Heightmap.Type.values();
+
+    // the points sampled by BiomePredicate
+    private static final int[] SAMPLES = {4, 4, 12, 4, 4, 12, 12, 12};
+
+    private static final int SINGLE_BIOME = 1;
+    private static final int SAMPLED = 1 << 1;
+
+    private final Biome[] samples = new Biome[SAMPLES.length / 2];
+    private final int[] center = new int[HEIGHTMAPS.length];
+    private final int[] min = new int[HEIGHTMAPS.length];
+    private final int[] max = new int[HEIGHTMAPS.length];
+
+    private Chunk chunk;
+    private Biome biome;
+    private BiomeArray biomes;
+
+    private int computed = 0;
+    private boolean singleBiome = false;
+    private long centerComputed = 0L;
+    private long rangeComputed = 0L;
+
+    public void reset(Chunk chunk, Biome biome) {
+        this.chunk = chunk;
+        this.biome = biome;
+        this.biomes = chunk.getBiomeArray();
+        this.computed = 0;
+        invalidateHeightmaps();
+    }
+
+    public void invalidateHeightmaps() {
+        centerComputed = 0L;
+        rangeComputed = 0L;
+    }
+
+    public Chunk getChunk() {
+        return chunk;
+    }
+
+    /**
+     * The biome at the center of the chunk that decoration is being performed for
+     */
+    public Biome getBiome() {
+        return biome;
+    }
+
+    /**
+     * Returns false if the chunk has no biome data, in which case all biome summaries are empty
+     */
+    public boolean hasBiomes() {
+        return biomes != null;
+    }
+
+    /**
+     * Returns true if every biome in the chunk's biome array is the center biome
+     */
+    public boolean isSingleBiome() {
+        if ((computed & SINGLE_BIOME) == 0) {
+            computed |= SINGLE_BIOME;
+            singleBiome = scanSingleBiome();
+        }
+        return singleBiome;
+    }
+
+    public int getBiomeSampleCount() {
+        return samples.length;
+    }
+
+    /**
+     * Returns the biome at one of the four points (4,4), (12,4), (4,12), (12,12) or null if the chunk has no biomes
+     */
+    public Biome getBiomeSample(int index) {
+        if ((computed & SAMPLED) == 0) {
+            computed |= SAMPLED;
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = biomes == null ? null : biomes.getBiomeForNoiseGen(SAMPLES[i * 2], 0, SAMPLES[i * 2 + 1]);
+            }
+        }
+        return samples[index];
+    }
+
+    /**
+     * Returns the heightmap value at the center (8, 8) of the chunk
+     */
+    public int getCenterHeight(Heightmap.Type type) {
+        int index = type.ordinal();
+        long bit = 1L << index;
+        if ((centerComputed & bit) == 0) {
+            centerComputed |= bit;
+            center[index] = chunk.sampleHeightmap(type, 8, 8);
+        }
+        return center[index];
+    }
+
+    public int getMinHeight(Heightmap.Type type) {
+        computeRange(type);
+        return min[type.ordinal()];
+    }
+
+    public int getMaxHeight(Heightmap.Type type) {
+        computeRange(type);
+        return max[type.ordinal()];
+    }
+
+    private void computeRange(Heightmap.Type type) {
+        int index = type.ordinal();
+        long bit = 1L << index;
+        if ((rangeComputed & bit) != 0) {
+            return;
+        }
+
+        int low = Integer.MAX_VALUE;
+        int high = Integer.MIN_VALUE;
+        for (int dz = 0; dz < 16; dz++) {
+            for (int dx = 0; dx < 16; dx++) {
+                int height = chunk.sampleHeightmap(type, dx, dz);
+                low = Math.min(low, height);
+                high = Math.max(high, height);
+            }
+        }
+
+        min[index] = low;
+        max[index] = high;
+        rangeComputed |= bit;
+    }
+
+    private boolean scanSingleBiome() {
+        if (biomes == null) {
+            return false;
+        }
+        for (int dz = 0; dz < 16; dz++) {
+            for (int dx = 0; dx < 16; dx++) {
+                if (biomes.getBiomeForNoiseGen(dx, 0, dz) != biome) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
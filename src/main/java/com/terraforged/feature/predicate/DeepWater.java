@@ -32,8 +32,18 @@ public class DeepWater implements FeaturePredicate {
 
     public static final DeepWater INSTANCE = new DeepWater();
 
+    @Override
+    public String toString() {
+        return "DeepWater{}";
+    }
+
     @Override
     public boolean test(Chunk chunk, Biome biome) {
         return biome.getCategory() == Biome.Category.OCEAN && biome.getDepth() < -1;
     }
+
+    @Override
+    public Dependency getDependency() {
+        return Dependency.BIOME;
+    }
 }
@@ -37,4 +37,57 @@ public interface FeaturePredicate extends BiPredicate<Chunk, Biome> {
 
     @Override
     boolean test(Chunk chunk, Biome biome);
+
+    /**
+     * Test the predicate against the chunk context. Implementations should override this to make use of the
+     * summaries that the context caches for the chunk.
+     */
+    default boolean test(ChunkContext context) {
+        return test(context.getChunk(), context.getBiome());
+    }
+
+    /**
+     * Returns the data that the result of this predicate depends on. Defaults to CHUNK which makes no assumptions.
+     */
+    default Dependency getDependency() {
+        return Dependency.CHUNK;
+    }
+
+    /**
+     * Returns true if the result of this predicate cannot change while a chunk is being decorated, allowing it
+     * to be evaluated once per chunk and shared between every feature that uses it
+     */
+    default boolean isMemoizable() {
+        return getDependency() == Dependency.BIOME || getDependency() == Dependency.CHUNK_BIOMES;
+    }
+
+    /**
+     * Partially evaluate the predicate for features of the given biome. Returns ALLOW or DENY if the result is
+     * known without a chunk, otherwise a predicate that is equivalent for chunks decorated as this biome.
+     */
+    default FeaturePredicate resolve(Biome biome) {
+        if (getDependency() == Dependency.BIOME) {
+            return test(null, biome) ? ALLOW : DENY;
+        }
+        return this;
+    }
+
+    enum Dependency {
+        /**
+         * The result depends only on the biome being decorated. The chunk passed to test may be null.
+         */
+        BIOME,
+        /**
+         * The result depends on the biome and the chunk's biome array
+         */
+        CHUNK_BIOMES,
+        /**
+         * The result depends on the chunk's heightmaps which features may modify during decoration
+         */
+        HEIGHTMAP,
+        /**
+         * The result may depend on anything
+         */
+        CHUNK,
+    }
 }
@@ -25,6 +25,7 @@
 
 package com.terraforged.feature.predicate;
 
+import net.minecraft.util.registry.Registry;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.Chunk;
 
@@ -36,8 +37,25 @@ public class MatchBiome implements FeaturePredicate {
         this.biome = biome;
     }
 
+    @Override
+    public String toString() {
+        return "MatchBiome{" +
+                "biome=" + Registry.BIOME.getId(biome) +
+                '}';
+    }
+
     @Override
     public boolean test(Chunk chunk, Biome biome) {
         return biome == this.biome;
     }
+
+    @Override
+    public boolean test(ChunkContext context) {
+        return context.getBiome() == biome;
+    }
+
+    @Override
+    public Dependency getDependency() {
+        return Dependency.BIOME;
+    }
 }
@@ -41,8 +41,25 @@ public class MinDepth implements FeaturePredicate {
         this.depth = depth;
     }
 
+    @Override
+    public String toString() {
+        return "MinDepth{" +
+                "depth=" + depth +
+                '}';
+    }
+
     @Override
     public boolean test(Chunk chunk, Biome biome) {
         return chunk.sampleHeightmap(Heightmap.Type.OCEAN_FLOOR, 8, 8) < depth;
     }
+
+    @Override
+    public boolean test(ChunkContext context) {
+        return context.getCenterHeight(Heightmap.Type.OCEAN_FLOOR) < depth;
+    }
+
+    @Override
+    public Dependency getDependency() {
+        return Dependency.HEIGHTMAP;
+    }
 }
@@ -41,8 +41,25 @@ public class MinHeight implements FeaturePredicate {
         this.height = height;
     }
 
+    @Override
+    public String toString() {
+        return "MinHeight{" +
+                "height=" + height +
+                '}';
+    }
+
     @Override
     public boolean test(Chunk chunk, Biome biome) {
         return chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, 8, 8) > height;
     }
+
+    @Override
+    public boolean test(ChunkContext context) {
+        return context.getCenterHeight(Heightmap.Type.WORLD_SURFACE) > height;
+    }
+
+    @Override
+    public Dependency getDependency() {
+        return Dependency.HEIGHTMAP;
+    }
 }
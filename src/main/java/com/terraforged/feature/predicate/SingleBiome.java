@@ -33,6 +33,11 @@ public class SingleBiome implements FeaturePredicate {
 
     public static final FeaturePredicate INSTANCE = new SingleBiome();
 
+    @Override
+    public String toString() {
+        return "SingleBiome{}";
+    }
+
     @Override
     public boolean test(Chunk chunk, Biome biome) {
         BiomeArray biomes = chunk.getBiomeArray();
@@ -48,4 +53,14 @@ public class SingleBiome implements FeaturePredicate {
         }
         return true;
     }
+
+    @Override
+    public boolean test(ChunkContext context) {
+        return context.isSingleBiome();
+    }
+
+    @Override
+    public Dependency getDependency() {
+        return Dependency.CHUNK_BIOMES;
+    }
 }
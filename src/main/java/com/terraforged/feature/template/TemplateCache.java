@@ -0,0 +1,274 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.template;
+
+import com.mojang.brigadier.StringReader;
+import com.terraforged.feature.FeatureManager;
+import com.terraforged.feature.template.feature.PackedTemplate;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.command.arguments.BlockArgumentParser;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Registry;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches decoded templates in a compact binary form so that subsequent runs can skip parsing the NBT. Each
+ * template is stored in its own file, named by a hash of the mod version, the block registry and the raw
+ * template resource, so a changed resource or set of blocks simply misses the cache. Files are small so are read
+ * into a heap buffer rather than mapped, which would keep them locked (on Windows) until the buffer is collected.
+ */
+public class TemplateCache {
+
+    public static final TemplateCache NONE = new TemplateCache(null, new byte[0]);
+
+    private static final int MAGIC = 0x54504C54;
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".bin";
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final Marker marker = MarkerManager.getMarker("CACHE");
+
+    private final Path dir;
+    private final byte[] blocks;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    private TemplateCache(Path dir, byte[] blocks) {
+        this.dir = dir;
+        this.blocks = blocks;
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the cache key of the given template resource, or null if the cache is disabled
+     */
+    public String getKey(byte[] data) {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(String.valueOf(FeatureManager.class.getPackage().getImplementationVersion()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(blocks);
+            digest.update(data);
+
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+
+            String key = sb.toString();
+            used.add(key);
+            return key;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    public Optional<PackedTemplate> load(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        Path file = dir.resolve(key + EXTENSION);
+        if (!Files.exists(file)) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+
+            BlockPos origin = new BlockPos(buffer.getInt(), buffer.getInt(), buffer.getInt());
+
+            BlockState[] palette = new BlockState[buffer.getInt()];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = parseState(readString(buffer));
+            }
+
+            int size = buffer.getInt();
+            long[] positions = new long[size];
+            buffer.asLongBuffer().get(positions);
+            buffer.position(buffer.position() + size * Long.BYTES);
+
+            int[] indexes = new int[size];
+            buffer.asIntBuffer().get(indexes);
+
+            hits.incrementAndGet();
+            return Optional.of(new PackedTemplate(palette, positions, indexes, origin));
+        } catch (Throwable t) {
+            FeatureManager.LOG.warn(marker, " Failed to read template cache: {}", file, t);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    public void save(String key, PackedTemplate template) {
+        if (key == null) {
+            return;
+        }
+
+        Path file = dir.resolve(key + EXTENSION);
+        try {
+            Files.createDirectories(dir);
+            // workers may save concurrently so each needs its own temp file
+            Path temp = Files.createTempFile(dir, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(template.getOrigin().getX());
+                out.writeInt(template.getOrigin().getY());
+                out.writeInt(template.getOrigin().getZ());
+
+                out.writeInt(template.getPaletteSize());
+                for (int i = 0; i < template.getPaletteSize(); i++) {
+                    writeString(out, BlockArgumentParser.stringifyBlockState(template.getPaletteState(i)));
+                }
+
+                out.writeInt(template.size());
+                for (int i = 0; i < template.size(); i++) {
+                    out.writeLong(template.getPackedPos(i));
+                }
+                for (int i = 0; i < template.size(); i++) {
+                    out.writeInt(template.getPaletteIndex(i));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            FeatureManager.LOG.warn(marker, " Failed to write template cache: {}", file, e);
+        }
+    }
+
+    /**
+     * Delete cached templates that have not been used for MAX_AGE. Files used during this run are touched so that
+     * their modified time records when they were last used, and templates of other packs or worlds sharing the
+     * directory survive until they have gone unused for that long.
+     */
+    public void prune() {
+        if (!isEnabled() || !Files.isDirectory(dir)) {
+            return;
+        }
+
+        int count = 0;
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    if (used.contains(name.substring(0, name.length() - EXTENSION.length()))) {
+                        Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+                    } else if (now - Files.getLastModifiedTime(file).toMillis() > MAX_AGE) {
+                        Files.deleteIfExists(file);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    FeatureManager.LOG.debug(marker, " Failed to prune cached template: {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            FeatureManager.LOG.warn(marker, " Failed to prune template cache: {}", dir, e);
+        }
+
+        if (count > 0) {
+            FeatureManager.LOG.debug(marker, " Pruned {} stale templates from cache", count);
+        }
+    }
+
+    public static TemplateCache create(TemplateSettings settings) {
+        if (settings.getCacheDir() == null) {
+            return NONE;
+        }
+        return new TemplateCache(settings.getCacheDir(), getBlockFingerprint());
+    }
+
+    /**
+     * Hash the block registry, since decoded palettes depend on which blocks (and states) are registered
+     */
+    private static byte[] getBlockFingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (Block block : Registry.BLOCK) {
+                digest.update(String.valueOf(Registry.BLOCK.getId(block)).getBytes(StandardCharsets.UTF_8));
+                digest.update(String.valueOf(block.getStateManager().getStates().size()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return digest.digest();
+        } catch (Throwable t) {
+            return new byte[0];
+        }
+    }
+
+    private static BlockState parseState(String state) throws Exception {
+        return new BlockArgumentParser(new StringReader(state), false).parse(false).getBlockState();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
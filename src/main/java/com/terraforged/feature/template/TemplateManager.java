@@ -31,7 +31,10 @@ import com.terraforged.feature.data.DataPack;
 import com.terraforged.feature.template.decorator.DecoratedFeature;
 import com.terraforged.feature.template.decorator.DecoratorFactory;
 import com.terraforged.feature.template.feature.MultiTemplateFeature;
+import com.terraforged.feature.template.feature.PackedTemplate;
 import com.terraforged.feature.template.feature.TemplateFeature;
+import com.terraforged.feature.template.feature.TemplateHandle;
+import com.terraforged.feature.template.feature.TemplateVariants;
 import com.terraforged.feature.template.type.FeatureTypes;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.util.Identifier;
@@ -39,21 +42,64 @@ import net.minecraft.util.registry.Registry;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TemplateManager {
 
     private static final Marker marker = MarkerManager.getMarker("TEMPLATES");
 
+    private static volatile TemplateStore store = null;
+
+    /**
+     * Returns the store backing the most recently registered templates when they were loaded lazily
+     */
+    public static Optional<TemplateStore> getStore() {
+        return Optional.ofNullable(store);
+    }
+
     public static void register() {
+        register(TemplateSettings.DEFAULT);
+    }
+
+    /**
+     * Load & register the template features of all loaded datapacks. Template resources are read serially and
+     * then decoded in parallel (or on first use in lazy mode), but registration always happens on the calling
+     * thread in config order.
+     */
+    public static void register(TemplateSettings settings) {
         ResourceManager manager = DataHelper.getResourceManager();
         List<TemplateConfig> configs = loadConfigs(manager);
+
+        List<List<TemplateData>> data = new ArrayList<>(configs.size());
         for (TemplateConfig config : configs) {
+            data.add(readTemplates(manager, config));
+        }
+
+        TemplateCache cache = TemplateCache.create(settings);
+        List<List<TemplateHandle>> templates;
+        if (settings.isLazy()) {
+            templates = createHandles(data, settings, cache);
+        } else {
+            store = null;
+            templates = decodeTemplates(data, settings, cache);
+        }
+        cache.prune();
+
+        for (int i = 0; i < configs.size(); i++) {
+            TemplateConfig config = configs.get(i);
             FeatureManager.LOG.debug(marker, "Registering feature: {}", config.getRegistryName());
-            List<TemplateFeature> templates = loadTemplates(manager, config);
-            MultiTemplateFeature feature = new MultiTemplateFeature(config, templates);
+            MultiTemplateFeature feature = new MultiTemplateFeature(config, templates.get(i));
             DecoratorFactory factory = feature.getType().getFactory();
             Optional<DecoratedFeature<?, ?>> decorated = factory.apply(feature, config.getDecorators());
             if (decorated.isPresent()) {
@@ -80,20 +126,137 @@ public class TemplateManager {
         return list;
     }
 
-    private static List<TemplateFeature> loadTemplates(ResourceManager manager, TemplateConfig config) {
-        List<TemplateFeature> list = new ArrayList<>();
+    private static List<TemplateData> readTemplates(ResourceManager manager, TemplateConfig config) {
+        List<TemplateData> list = new ArrayList<>();
         for (Identifier path : config.getPaths()) {
-            FeatureManager.LOG.debug(marker, " Loading templates for: {}", config.getRegistryName());
+            FeatureManager.LOG.debug(marker, " Reading templates for: {}", config.getRegistryName());
             DataPack.iterateData(manager, path.getPath(), DataHelper.NBT, (location, data) -> {
-                Optional<TemplateFeature> template = TemplateFeature.load(data);
-                if (template.isPresent()) {
-                    list.add(template.get());
-                    FeatureManager.LOG.debug(marker, "  Loaded template: {}", location);
-                } else {
-                    FeatureManager.LOG.error(marker, "  Failed to load template: {}", location);
+                // catch per resource so that one unreadable file doesn't end the iteration
+                try {
+                    list.add(new TemplateData(location, DataPack.readBytes(data)));
+                } catch (IOException e) {
+                    FeatureManager.LOG.error(marker, "  Failed to read template: {}", location, e);
                 }
             });
         }
         return list;
     }
+
+    private static List<List<TemplateHandle>> createHandles(List<List<TemplateData>> data, TemplateSettings settings, TemplateCache cache) {
+        TemplateStore store = new TemplateStore(settings, cache);
+        List<List<TemplateHandle>> results = new ArrayList<>(data.size());
+        for (List<TemplateData> templates : data) {
+            List<TemplateHandle> list = new ArrayList<>(templates.size());
+            for (TemplateData template : templates) {
+                list.add(store.createHandle(template.location, template.data));
+            }
+            results.add(list);
+        }
+        TemplateManager.store = store;
+        FeatureManager.LOG.debug(marker, " Templates will be decoded on demand (max resident blocks: {})", settings.getMaxResidentBlocks());
+        return results;
+    }
+
+    private static List<List<TemplateHandle>> decodeTemplates(List<List<TemplateData>> data, TemplateSettings settings, TemplateCache cache) {
+        long start = System.currentTimeMillis();
+        List<List<Future<Optional<TemplateFeature>>>> futures = new ArrayList<>(data.size());
+        ExecutorService executor = createExecutor(settings);
+        try {
+            for (List<TemplateData> templates : data) {
+                List<Future<Optional<TemplateFeature>>> list = new ArrayList<>(templates.size());
+                for (TemplateData template : templates) {
+                    list.add(submit(executor, template, settings, cache));
+                }
+                futures.add(list);
+            }
+
+            // join in submission order so that results are deterministic
+            int count = 0;
+            List<List<TemplateHandle>> results = new ArrayList<>(data.size());
+            for (int i = 0; i < data.size(); i++) {
+                List<TemplateHandle> list = new ArrayList<>();
+                for (int j = 0; j < data.get(i).size(); j++) {
+                    Identifier location = data.get(i).get(j).location;
+                    Optional<TemplateFeature> template = join(futures.get(i).get(j), location);
+                    if (template.isPresent()) {
+                        list.add(TemplateHandle.of(template.get()));
+                        FeatureManager.LOG.debug(marker, "  Loaded template: {}", location);
+                    } else {
+                        FeatureManager.LOG.error(marker, "  Failed to load template: {}", location);
+                    }
+                }
+                count += list.size();
+                results.add(list);
+            }
+
+            FeatureManager.LOG.debug(marker, " Decoded {} templates in {}ms", count, System.currentTimeMillis() - start);
+            if (cache.isEnabled()) {
+                FeatureManager.LOG.debug(marker, " Template cache hits: {}, misses: {}", cache.getHits(), cache.getMisses());
+            }
+            return results;
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static Future<Optional<TemplateFeature>> submit(ExecutorService executor, TemplateData template, TemplateSettings settings, TemplateCache cache) {
+        Callable<Optional<TemplateFeature>> decode = () -> decode(template.data, cache.getKey(template.data), settings.getVariants(), cache);
+        if (executor == null) {
+            FutureTask<Optional<TemplateFeature>> task = new FutureTask<>(decode);
+            task.run();
+            return task;
+        }
+        return executor.submit(decode);
+    }
+
+    private static Optional<TemplateFeature> join(Future<Optional<TemplateFeature>> future, Identifier location) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            FeatureManager.LOG.error(marker, "  Error decoding template: {}", location, e.getCause());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Decode a template from its raw resource data, going through the template cache when it is enabled
+     */
+    static Optional<TemplateFeature> decode(byte[] data, String key, TemplateVariants.Mode mode, TemplateCache cache) {
+        Optional<PackedTemplate> cached = cache.load(key);
+        if (cached.isPresent()) {
+            return Optional.of(TemplateFeature.of(cached.get(), mode));
+        }
+
+        Optional<PackedTemplate> template = PackedTemplate.load(new ByteArrayInputStream(data));
+        // templates with unknown blocks may decode differently once those blocks are installed
+        template.filter(t -> !t.hasMissingBlocks()).ifPresent(t -> cache.save(key, t));
+        return template.map(t -> TemplateFeature.of(t, mode));
+    }
+
+    private static ExecutorService createExecutor(TemplateSettings settings) {
+        if (!settings.isParallel()) {
+            return null;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(settings.getParallelism(), task -> {
+            Thread thread = new Thread(task, "TemplateManager-Worker-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class TemplateData {
+
+        private final Identifier location;
+        private final byte[] data;
+
+        private TemplateData(Identifier location, byte[] data) {
+            this.location = location;
+            this.data = data;
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.template;
+
+import com.terraforged.feature.template.feature.TemplateVariants;
+
+import java.nio.file.Path;
+
+public class TemplateSettings {
+
+    public static final TemplateSettings DEFAULT = TemplateSettings.builder().build();
+    public static final TemplateSettings SERIAL = TemplateSettings.builder().parallelism(1).build();
+
+    private final int parallelism;
+    private final TemplateVariants.Mode variants;
+    private final Path cacheDir;
+    private final long maxResidentBlocks;
+
+    private TemplateSettings(Builder builder) {
+        this.maxResidentBlocks = builder.maxResidentBlocks;
+        this.parallelism = builder.parallelism;
+        this.variants = builder.variants;
+        this.cacheDir = builder.cacheDir;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    public TemplateVariants.Mode getVariants() {
+        return variants;
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    public boolean isLazy() {
+        return maxResidentBlocks > 0;
+    }
+
+    public long getMaxResidentBlocks() {
+        return maxResidentBlocks;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Path cacheDir = null;
+        private long maxResidentBlocks = 0;
+        private TemplateVariants.Mode variants = TemplateVariants.Mode.LAZY;
+
+        /**
+         * Set the number of worker threads used to decode templates. A value of 1 decodes every template
+         * serially on the calling thread.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        /**
+         * Set when the mirrored/rotated variants of each template are baked. Baked variants trade up to eight
+         * copies of a template's positions for placement without per-block transforms.
+         */
+        public Builder variants(TemplateVariants.Mode mode) {
+            this.variants = mode;
+            return this;
+        }
+
+        /**
+         * Set the directory that decoded templates are cached to between runs. The cache is disabled when no
+         * directory is set.
+         */
+        public Builder cache(Path dir) {
+            this.cacheDir = dir;
+            return this;
+        }
+
+        /**
+         * Decode templates on first use rather than at startup, evicting the least-recently-used templates once
+         * the total number of blocks held exceeds the given budget. A value of 0 or less disables lazy loading.
+         */
+        public Builder lazy(long maxResidentBlocks) {
+            this.maxResidentBlocks = Math.max(0, maxResidentBlocks);
+            return this;
+        }
+
+        public TemplateSettings build() {
+            return new TemplateSettings(this);
+        }
+    }
+}
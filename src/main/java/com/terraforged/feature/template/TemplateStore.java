@@ -0,0 +1,247 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.template;
+
+import com.terraforged.feature.FeatureManager;
+import com.terraforged.feature.template.feature.TemplateFeature;
+import com.terraforged.feature.template.feature.TemplateHandle;
+import com.terraforged.feature.template.feature.TemplateVariants;
+import net.minecraft.util.Identifier;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decodes templates on first use and keeps them resident until the total number of blocks held exceeds the
+ * configured budget, at which point the least-recently-used templates are evicted. Only the compressed
+ * resource data of each template is retained between uses.
+ *
+ * Lookups are lock-free. Each access stamps its entry with the next tick of a shared clock, skipping the tick when
+ * the entry already holds the latest stamp so repeated hits on the same template don't contend on it. Eviction
+ * (under its own lock) removes the entries with the oldest stamps.
+ */
+public class TemplateStore {
+
+    private static final Marker marker = MarkerManager.getMarker("TEMPLATES");
+
+    private final long maxBlocks;
+    private final TemplateCache cache;
+    private final TemplateVariants.Mode mode;
+    private final Map<Handle, Entry> resident = new ConcurrentHashMap<>();
+    private final Object evictLock = new Object();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong residentBlocks = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TemplateStore(TemplateSettings settings, TemplateCache cache) {
+        this.maxBlocks = settings.getMaxResidentBlocks();
+        this.mode = settings.getVariants();
+        this.cache = cache;
+    }
+
+    public TemplateHandle createHandle(Identifier location, byte[] data) {
+        return new Handle(location, data, cache.getKey(data));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : hits / (double) total;
+    }
+
+    public long getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    /**
+     * Returns the total block count of the templates currently held. Baked variants are not included.
+     */
+    public long getResidentBlocks() {
+        return residentBlocks.get();
+    }
+
+    public int getResidentTemplates() {
+        return resident.size();
+    }
+
+    private Optional<TemplateFeature> get(Handle handle) {
+        Entry entry = resident.get(handle);
+        if (entry != null) {
+            if (entry.lastAccess != clock.get()) {
+                entry.lastAccess = clock.incrementAndGet();
+            }
+            hits.increment();
+            return Optional.of(entry.feature);
+        }
+
+        misses.increment();
+
+        // concurrent misses on the same template may both decode it, only the first to be stored is kept
+        try {
+            Optional<TemplateFeature> feature = TemplateManager.decode(handle.data, handle.key, mode, cache);
+            if (feature.isPresent()) {
+                return Optional.of(put(handle, feature.get()));
+            }
+            FeatureManager.LOG.error(marker, "Failed to load template: {}", handle.location);
+        } catch (UncheckedIOException | Error e) {
+            // io failures & errors such as running out of memory may not recur so the template is retried next time
+            FeatureManager.LOG.error(marker, "Error decoding template: {}", handle.location, e);
+            return Optional.empty();
+        } catch (Throwable t) {
+            FeatureManager.LOG.error(marker, "Error decoding template: {}", handle.location, t);
+        }
+
+        // the resource data never changes so a template that is malformed now always will be
+        handle.failed = true;
+        return Optional.empty();
+    }
+
+    private TemplateFeature put(Handle handle, TemplateFeature feature) {
+        Entry entry = new Entry(feature, clock.incrementAndGet());
+        Entry existing = resident.putIfAbsent(handle, entry);
+        if (existing != null) {
+            return existing.feature;
+        }
+
+        if (residentBlocks.addAndGet(entry.blocks) > maxBlocks) {
+            evict(handle);
+        }
+
+        return feature;
+    }
+
+    /**
+     * Remove the least-recently-used templates until the resident block count is back within budget. The
+     * template that was just stored is never evicted, even if it alone exceeds the budget.
+     */
+    private void evict(Handle keep) {
+        synchronized (evictLock) {
+            if (residentBlocks.get() <= maxBlocks) {
+                return;
+            }
+
+            // snapshot the access stamps as they may change while sorting
+            List<Candidate> candidates = new ArrayList<>(resident.size());
+            for (Map.Entry<Handle, Entry> e : resident.entrySet()) {
+                if (e.getKey() != keep) {
+                    candidates.add(new Candidate(e.getKey(), e.getValue()));
+                }
+            }
+            candidates.sort(Comparator.comparingLong(c -> c.lastAccess));
+
+            for (Candidate candidate : candidates) {
+                if (residentBlocks.get() <= maxBlocks) {
+                    break;
+                }
+                if (resident.remove(candidate.handle, candidate.entry)) {
+                    residentBlocks.addAndGet(-candidate.entry.blocks);
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final int blocks;
+        private final TemplateFeature feature;
+        private volatile long lastAccess;
+
+        private Entry(TemplateFeature feature, long lastAccess) {
+            this.feature = feature;
+            this.blocks = feature.getTemplate().size();
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class Candidate {
+
+        private final Handle handle;
+        private final Entry entry;
+        private final long lastAccess;
+
+        private Candidate(Handle handle, Entry entry) {
+            this.handle = handle;
+            this.entry = entry;
+            this.lastAccess = entry.lastAccess;
+        }
+    }
+
+    private class Handle implements TemplateHandle {
+
+        private final Identifier location;
+        private final byte[] data;
+        private final String key;
+        private volatile boolean failed = false;
+
+        private Handle(Identifier location, byte[] data, String key) {
+            this.location = location;
+            this.data = data;
+            this.key = key;
+        }
+
+        @Override
+        public Optional<TemplateFeature> get() {
+            if (failed) {
+                return Optional.empty();
+            }
+            return TemplateStore.this.get(this);
+        }
+
+        @Override
+        public boolean isFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return location.toString();
+        }
+    }
+}
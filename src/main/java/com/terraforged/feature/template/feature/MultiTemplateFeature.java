@@ -35,7 +35,9 @@ import net.minecraft.world.gen.chunk.ChunkGenerator;
 import net.minecraft.world.gen.feature.DefaultFeatureConfig;
 import net.minecraft.world.gen.feature.Feature;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 
 public class MultiTemplateFeature extends Feature<DefaultFeatureConfig> implements TypedFeature {
@@ -44,9 +46,9 @@ public class MultiTemplateFeature extends Feature<DefaultFeatureConfig> implemen
 
     private final FeatureType type;
     private final Identifier name;
-    private final List<TemplateFeature> templates;
+    private volatile List<TemplateHandle> templates;
 
-    public MultiTemplateFeature(TemplateConfig config, List<TemplateFeature> templates) {
+    public MultiTemplateFeature(TemplateConfig config, List<TemplateHandle> templates) {
         super(DefaultFeatureConfig::deserialize);
         this.type = config.getType();
         this.name = config.getRegistryName();
@@ -62,10 +64,10 @@ public class MultiTemplateFeature extends Feature<DefaultFeatureConfig> implemen
     @Override
     public boolean generate(IWorld world, ChunkGenerator<?> generator, Random rand, BlockPos pos, DefaultFeatureConfig config) {
         if (getType().getPlacement().canPlaceAt(world, pos)) {
-            if (templates.size() > 0) {
-                Feature<TemplateFeatureConfig> feature = next(rand);
+            Optional<TemplateFeature> feature = next(rand);
+            if (feature.isPresent()) {
                 TemplateFeatureConfig cfg = new TemplateFeatureConfig(false, false, baseDepth);
-                return feature.generate(world, generator, rand, pos, cfg);
+                return feature.get().generate(world, generator, rand, pos, cfg);
             }
         }
         return false;
@@ -92,8 +94,28 @@ public class MultiTemplateFeature extends Feature<DefaultFeatureConfig> implemen
         return name.hashCode();
     }
 
-    private TemplateFeature next(Random random) {
-        int index = random.nextInt(templates.size());
-        return templates.get(index);
+    /**
+     * Pick a template, dropping any handle that can never load and picking again so that (lazily loaded) templates
+     * that can't be decoded are excluded in the same way as when they are decoded up front. A handle that failed
+     * to load this time is kept and the placement skipped.
+     */
+    private Optional<TemplateFeature> next(Random random) {
+        List<TemplateHandle> templates = this.templates;
+        while (!templates.isEmpty()) {
+            TemplateHandle handle = templates.get(random.nextInt(templates.size()));
+            Optional<TemplateFeature> feature = handle.get();
+            if (feature.isPresent() || !handle.isFailed()) {
+                return feature;
+            }
+            templates = remove(handle);
+        }
+        return Optional.empty();
+    }
+
+    private synchronized List<TemplateHandle> remove(TemplateHandle handle) {
+        List<TemplateHandle> templates = new ArrayList<>(this.templates);
+        templates.remove(handle);
+        this.templates = templates;
+        return templates;
     }
 }
@@ -0,0 +1,301 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.template.feature;
+
+import com.terraforged.feature.util.BlockReader;
+import net.fabricmc.fabric.api.util.NbtType;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.util.BlockMirror;
+import net.minecraft.util.BlockRotation;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * A structure template flattened into a block palette and parallel arrays of packed positions (relative to the
+ * template origin) and palette indexes. Per-state flags are computed once at load time.
+ */
+public class PackedTemplate {
+
+    public static final byte AIR = 1;
+    public static final byte OPAQUE = 2;
+    public static final byte FULL_BLOCK = 4;
+
+    private final BlockState[] palette;
+    private final byte[] flags;
+    private final long[] positions;
+    private final int[] indexes;
+    private final BlockPos origin;
+    private final boolean missingBlocks;
+
+    public PackedTemplate(BlockState[] palette, long[] positions, int[] indexes, BlockPos origin) {
+        this(palette, readFlags(palette), positions, indexes, origin, false);
+    }
+
+    private PackedTemplate(BlockState[] palette, byte[] flags, long[] positions, int[] indexes, BlockPos origin, boolean missingBlocks) {
+        this.palette = palette;
+        this.flags = flags;
+        this.positions = positions;
+        this.indexes = indexes;
+        this.origin = origin;
+        this.missingBlocks = missingBlocks;
+    }
+
+    /**
+     * Returns true if any palette entry named a block that isn't registered and was replaced with air
+     */
+    public boolean hasMissingBlocks() {
+        return missingBlocks;
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * Returns the position, in the source structure, of the block that the template is centered on
+     */
+    public BlockPos getOrigin() {
+        return origin;
+    }
+
+    public BlockState getPaletteState(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+
+    public BlockState getState(int index) {
+        return palette[indexes[index]];
+    }
+
+    /**
+     * Returns the position of the block at the given index relative to the origin, packed as per BlockPos.asLong
+     */
+    public long getPackedPos(int index) {
+        return positions[index];
+    }
+
+    public int getPaletteIndex(int index) {
+        return indexes[index];
+    }
+
+    public boolean hasFlag(int index, byte flag) {
+        return (flags[indexes[index]] & flag) != 0;
+    }
+
+    public int getX(int index) {
+        return BlockPos.unpackLongX(positions[index]);
+    }
+
+    public int getY(int index) {
+        return BlockPos.unpackLongY(positions[index]);
+    }
+
+    public int getZ(int index) {
+        return BlockPos.unpackLongZ(positions[index]);
+    }
+
+    /**
+     * Write the position of the block at the given index, mirrored & rotated about the template origin and then
+     * offset by the given origin, into the mutable pos. Equivalent to Structure.transformAround(..., ORIGIN).
+     */
+    public BlockPos.Mutable getPos(int index, BlockMirror mirror, BlockRotation rotation, BlockPos origin, BlockPos.Mutable pos) {
+        long packed = positions[index];
+        int x = BlockPos.unpackLongX(packed);
+        int y = BlockPos.unpackLongY(packed);
+        int z = BlockPos.unpackLongZ(packed);
+
+        if (mirror == BlockMirror.LEFT_RIGHT) {
+            z = -z;
+        } else if (mirror == BlockMirror.FRONT_BACK) {
+            x = -x;
+        }
+
+        switch (rotation) {
+            case COUNTERCLOCKWISE_90:
+                return pos.set(origin.getX() + z, origin.getY() + y, origin.getZ() - x);
+            case CLOCKWISE_90:
+                return pos.set(origin.getX() - z, origin.getY() + y, origin.getZ() + x);
+            case CLOCKWISE_180:
+                return pos.set(origin.getX() - x, origin.getY() + y, origin.getZ() - z);
+            default:
+                return pos.set(origin.getX() + x, origin.getY() + y, origin.getZ() + z);
+        }
+    }
+
+    /**
+     * Returns the palette with every state rotated & mirrored
+     */
+    public BlockState[] getPalette(BlockMirror mirror, BlockRotation rotation) {
+        BlockState[] states = new BlockState[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            states[i] = palette[i].rotate(rotation).mirror(mirror);
+        }
+        return states;
+    }
+
+    public static Optional<PackedTemplate> load(InputStream data) {
+        try {
+            CompoundTag root = NbtIo.readCompressed(data);
+            return read(root);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static Optional<PackedTemplate> read(CompoundTag root) {
+        if (!root.contains("palette") || !root.contains("blocks")) {
+            return Optional.empty();
+        }
+
+        ListTag paletteTag = root.getList("palette", NbtType.COMPOUND);
+        BlockState[] palette = readPalette(paletteTag);
+        boolean missingBlocks = hasMissingBlocks(paletteTag, palette);
+        byte[] flags = readFlags(palette);
+
+        ListTag blocks = root.getList("blocks", NbtType.COMPOUND);
+        int[] indexes = new int[blocks.size()];
+        int[] xs = new int[blocks.size()];
+        int[] ys = new int[blocks.size()];
+        int[] zs = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            CompoundTag compound = blocks.getCompound(i);
+            ListTag pos = compound.getList("pos", NbtType.INT);
+            indexes[i] = compound.getInt("state");
+            xs[i] = pos.getInt(0);
+            ys[i] = pos.getInt(1);
+            zs[i] = pos.getInt(2);
+        }
+
+        int origin = findOrigin(xs, ys, zs, indexes, flags);
+        int ox = origin == -1 ? 0 : xs[origin];
+        int oy = origin == -1 ? 0 : ys[origin];
+        int oz = origin == -1 ? 0 : zs[origin];
+
+        // relativize all blocks to the origin
+        long[] positions = new long[indexes.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = BlockPos.asLong(xs[i] - ox, ys[i] - oy, zs[i] - oz);
+        }
+
+        return Optional.of(new PackedTemplate(palette, flags, positions, indexes, new BlockPos(ox, oy, oz), missingBlocks));
+    }
+
+    private static BlockState[] readPalette(ListTag list) {
+        BlockState[] palette = new BlockState[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            try {
+                palette[i] = NbtHelper.toBlockState(list.getCompound(i));
+            } catch (Throwable t) {
+                palette[i] = Blocks.AIR.getDefaultState();
+            }
+        }
+        return palette;
+    }
+
+    private static boolean hasMissingBlocks(ListTag list, BlockState[] palette) {
+        for (int i = 0; i < palette.length; i++) {
+            // unknown block names resolve to the registry default (air) rather than failing
+            Identifier name = Identifier.tryParse(list.getCompound(i).getString("Name"));
+            if (name == null || !name.equals(Registry.BLOCK.getId(palette[i].getBlock()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] readFlags(BlockState[] palette) {
+        BlockReader reader = new BlockReader();
+        byte[] flags = new byte[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            BlockState state = palette[i];
+            if (state.getBlock() == Blocks.AIR) {
+                flags[i] |= AIR;
+            }
+            if (state.isOpaque()) {
+                flags[i] |= OPAQUE;
+            }
+            if (state.isSimpleFullBlock(reader.setState(state), BlockPos.ORIGIN)) {
+                flags[i] |= FULL_BLOCK;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Returns the index of the lowest, most-central opaque block, or -1 if there are none
+     */
+    private static int findOrigin(int[] xs, int[] ys, int[] zs, int[] indexes, byte[] flags) {
+        // find the size
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < indexes.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+        int centerX = (maxX - minX) / 2;
+        int centerZ = (maxZ - minZ) / 2;
+
+        int origin = -1;
+        int lowestSolid = Integer.MAX_VALUE;
+        int closestDist2 = Integer.MAX_VALUE;
+        for (int i = 0; i < indexes.length; i++) {
+            if ((flags[indexes[i]] & OPAQUE) == 0) {
+                continue;
+            }
+
+            int dist2 = dist2(centerX, centerZ, xs[i], zs[i]);
+            if (origin == -1 || ys[i] < lowestSolid || (ys[i] == lowestSolid && dist2 < closestDist2)) {
+                origin = i;
+                lowestSolid = ys[i];
+                closestDist2 = dist2;
+            }
+        }
+        return origin;
+    }
+
+    private static int dist2(int x1, int z1, int x2, int z2) {
+        int dx = x1 - x2;
+        int dz = z1 - z2;
+        return dx * dx + dz * dz;
+    }
+}
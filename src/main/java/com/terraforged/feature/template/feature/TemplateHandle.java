@@ -1,5 +1,5 @@
 /*
- *   
+ *
  * MIT License
  *
  * Copyright (c) 2020 TerraForged
@@ -23,31 +23,26 @@
  * SOFTWARE.
  */
 
-package com.terraforged.feature.matcher.feature;
-
-import com.google.gson.JsonPrimitive;
+package com.terraforged.feature.template.feature;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Optional;
 
-public class Search {
+/**
+ * A reference to a template that may or may not currently be decoded
+ */
+public interface TemplateHandle {
 
-    private final List<Matcher> matchers;
+    Optional<TemplateFeature> get();
 
-    Search(List<Rule> list) {
-        matchers = new ArrayList<>(list.size());
-        for (Rule rule : list) {
-            matchers.add(rule.createMatcher());
-        }
+    /**
+     * Returns true if the template can never be loaded, as opposed to having failed to load this time
+     */
+    default boolean isFailed() {
+        return false;
     }
 
-    public boolean test(JsonPrimitive value) {
-        for (Matcher matcher : matchers) {
-            matcher.test(value);
-            if (matcher.complete()) {
-                return true;
-            }
-        }
-        return false;
+    static TemplateHandle of(TemplateFeature feature) {
+        Optional<TemplateFeature> value = Optional.of(feature);
+        return () -> value;
     }
 }
@@ -0,0 +1,96 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.template.feature;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+
+/**
+ * A PackedTemplate with a single mirror & rotation applied to its palette and positions ahead of time. Block
+ * order and palette indexes are the same as the source template's.
+ */
+public class TemplateVariant {
+
+    private final BlockState[] palette;
+    private final long[] positions;
+    private final BlockBox bounds;
+
+    public TemplateVariant(BlockState[] palette, long[] positions) {
+        this.palette = palette;
+        this.positions = positions;
+        this.bounds = getBounds(positions);
+    }
+
+    public BlockState[] getPalette() {
+        return palette;
+    }
+
+    /**
+     * Returns the bounds of the variant relative to the template origin
+     */
+    public BlockBox getBounds() {
+        return bounds;
+    }
+
+    public BlockPos.Mutable getPos(int index, BlockPos origin, BlockPos.Mutable pos) {
+        long packed = positions[index];
+        int x = origin.getX() + BlockPos.unpackLongX(packed);
+        int y = origin.getY() + BlockPos.unpackLongY(packed);
+        int z = origin.getZ() + BlockPos.unpackLongZ(packed);
+        return pos.set(x, y, z);
+    }
+
+    boolean isEquivalent(TemplateVariant other) {
+        return Arrays.equals(palette, other.palette) && Arrays.equals(positions, other.positions);
+    }
+
+    private static BlockBox getBounds(long[] positions) {
+        if (positions.length == 0) {
+            return new BlockBox(0, 0, 0, 0, 0, 0);
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (long packed : positions) {
+            int x = BlockPos.unpackLongX(packed);
+            int y = BlockPos.unpackLongY(packed);
+            int z = BlockPos.unpackLongZ(packed);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        return new BlockBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+}
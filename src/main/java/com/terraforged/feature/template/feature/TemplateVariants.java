@@ -0,0 +1,166 @@
+/*
+ *
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.feature.template.feature;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.BlockMirror;
+import net.minecraft.util.BlockRotation;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the pre-baked mirror/rotation variants of a PackedTemplate. Combinations that produce an identical
+ * variant (for example a mirror plus a half-turn on a template whose states are unaffected) share one instance.
+ */
+public class TemplateVariants {
+
+    private static final BlockMirror[] MIRRORS = BlockMirror.values();
+    private static final BlockRotation[] ROTATIONS = BlockRotation.values();
+
+    private final Mode mode;
+    private final PackedTemplate template;
+    private final AtomicReferenceArray<TemplateVariant> variants;
+
+    public TemplateVariants(PackedTemplate template, Mode mode) {
+        this.mode = mode;
+        this.template = template;
+        this.variants = new AtomicReferenceArray<>(mode == Mode.NONE ? 0 : MIRRORS.length * ROTATIONS.length);
+        if (mode == Mode.EAGER) {
+            for (BlockMirror mirror : MIRRORS) {
+                for (BlockRotation rotation : ROTATIONS) {
+                    get(mirror, rotation);
+                }
+            }
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the variant for the given mirror & rotation, baking it if necessary, or null when variants are
+     * disabled
+     */
+    public TemplateVariant get(BlockMirror mirror, BlockRotation rotation) {
+        if (mode == Mode.NONE) {
+            return null;
+        }
+        int index = mirror.ordinal() * ROTATIONS.length + rotation.ordinal();
+        TemplateVariant variant = variants.get(index);
+        if (variant == null) {
+            variant = bake(index, mirror, rotation);
+        }
+        return variant;
+    }
+
+    /**
+     * Returns the number of distinct variants currently held
+     */
+    public int getDistinctCount() {
+        int count = 0;
+        for (int i = 0; i < variants.length(); i++) {
+            TemplateVariant variant = variants.get(i);
+            if (variant != null && indexOf(variant) == i) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private synchronized TemplateVariant bake(int index, BlockMirror mirror, BlockRotation rotation) {
+        TemplateVariant existing = variants.get(index);
+        if (existing != null) {
+            return existing;
+        }
+
+        TemplateVariant variant = create(mirror, rotation);
+        TemplateVariant shared = find(variant);
+        if (shared != null) {
+            variant = shared;
+        }
+
+        variants.set(index, variant);
+        return variant;
+    }
+
+    /**
+     * Returns an existing variant equivalent to the given one, otherwise null
+     */
+    private TemplateVariant find(TemplateVariant variant) {
+        for (int i = 0; i < variants.length(); i++) {
+            TemplateVariant other = variants.get(i);
+            if (other != null && other.isEquivalent(variant)) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    private TemplateVariant create(BlockMirror mirror, BlockRotation rotation) {
+        BlockState[] palette = template.getPalette(mirror, rotation);
+        for (int i = 0; i < variants.length(); i++) {
+            TemplateVariant other = variants.get(i);
+            if (other != null && Arrays.equals(other.getPalette(), palette)) {
+                palette = other.getPalette();
+                break;
+            }
+        }
+
+        long[] positions = new long[template.size()];
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = template.getPos(i, mirror, rotation, BlockPos.ORIGIN, pos).asLong();
+        }
+        return new TemplateVariant(palette, positions);
+    }
+
+    private int indexOf(TemplateVariant variant) {
+        for (int i = 0; i < variants.length(); i++) {
+            if (variants.get(i) == variant) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public enum Mode {
+        /**
+         * Transform every block on each paste. Uses no additional memory.
+         */
+        NONE,
+        /**
+         * Bake each variant the first time it is pasted
+         */
+        LAZY,
+        /**
+         * Bake every variant when the template is loaded
+         */
+        EAGER,
+    }
+}
@@ -32,6 +32,7 @@ import com.google.gson.JsonPrimitive;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -51,6 +52,19 @@ public class FeatureTransformer implements Function<JsonElement, JsonElement> {
         builder.valueTransformers = Collections.emptyMap();
     }
 
+    @Override
+    public String toString() {
+        return "FeatureTransformer{" +
+                "keyTransformers=" + keyTransformers +
+                ", valueTransformers=" + valueTransformers +
+                '}';
+    }
+
+    /**
+     * Transform the element, copying only the objects & arrays on the path to a changed value. Unchanged
+     * subtrees are shared with the source element and the source element itself is returned if nothing changed,
+     * so the result must not be mutated.
+     */
     @Override
     public JsonElement apply(JsonElement element) {
         if (hasTransformations) {
@@ -68,38 +82,113 @@ public class FeatureTransformer implements Function<JsonElement, JsonElement> {
     }
 
     private JsonPrimitive transformValue(JsonPrimitive primitive) {
-        return valueTransformers.getOrDefault(primitive, primitive);
+        JsonPrimitive result = valueTransformers.get(primitive);
+        if (result == null || result.equals(primitive)) {
+            return primitive;
+        }
+        return result;
     }
 
     private JsonArray transformArray(JsonArray source) {
-        JsonArray dest = new JsonArray();
-        for (JsonElement element : source) {
-            dest.add(apply(element));
+        JsonArray dest = null;
+        for (int i = 0; i < source.size(); i++) {
+            JsonElement element = source.get(i);
+            JsonElement result = apply(element);
+            if (dest == null && result != element) {
+                dest = new JsonArray();
+                for (int j = 0; j < i; j++) {
+                    dest.add(source.get(j));
+                }
+            }
+            if (dest != null) {
+                dest.add(result);
+            }
         }
-        return dest;
+        return dest == null ? source : dest;
     }
 
     private JsonObject transformObject(JsonObject source) {
-        JsonObject dest = new JsonObject();
+        JsonObject dest = null;
         for (Map.Entry<String, JsonElement> entry : source.entrySet()) {
             JsonElement result = transformEntry(entry.getKey(), entry.getValue());
-            dest.add(entry.getKey(), result);
+            if (dest == null && result != entry.getValue()) {
+                dest = copyUntil(source, entry.getKey());
+            }
+            if (dest != null) {
+                dest.add(entry.getKey(), result);
+            }
         }
-        return dest;
+        return dest == null ? source : dest;
     }
 
     private JsonElement transformEntry(String key, JsonElement value) {
         JsonElement keyResult = keyTransformers.get(key);
         if (keyResult != null) {
-            return keyResult;
+            return keyResult.equals(value) ? value : keyResult;
         }
         return apply(value);
     }
 
+    private static JsonObject copyUntil(JsonObject source, String key) {
+        JsonObject dest = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : source.entrySet()) {
+            if (entry.getKey().equals(key)) {
+                break;
+            }
+            dest.add(entry.getKey(), entry.getValue());
+        }
+        return dest;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Compose the transformers into a single transformer equivalent to applying each of them in order, so that
+     * the tree only needs to be traversed once.
+     *
+     * Value replacements are chained through the later transformers. A key maps to the element set by the last
+     * transformer with that key, with the transformers that follow it already applied to that element.
+     */
+    public static FeatureTransformer fuse(List<FeatureTransformer> transformers) {
+        if (transformers.isEmpty()) {
+            return NONE;
+        }
+        if (transformers.size() == 1) {
+            return transformers.get(0);
+        }
+
+        Map<JsonPrimitive, JsonPrimitive> values = new HashMap<>();
+        for (FeatureTransformer transformer : transformers) {
+            for (Map.Entry<JsonPrimitive, JsonPrimitive> entry : values.entrySet()) {
+                entry.setValue(transformer.transformValue(entry.getValue()));
+            }
+            for (Map.Entry<JsonPrimitive, JsonPrimitive> entry : transformer.valueTransformers.entrySet()) {
+                values.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, JsonElement> keys = new HashMap<>();
+        for (int i = transformers.size() - 1; i >= 0; i--) {
+            for (Map.Entry<String, JsonElement> entry : transformers.get(i).keyTransformers.entrySet()) {
+                if (keys.containsKey(entry.getKey())) {
+                    continue;
+                }
+                JsonElement value = entry.getValue();
+                for (int j = i + 1; j < transformers.size(); j++) {
+                    value = transformers.get(j).apply(value);
+                }
+                keys.put(entry.getKey(), value);
+            }
+        }
+
+        Builder builder = builder();
+        keys.forEach(builder::key);
+        values.forEach(builder::value);
+        return builder.build();
+    }
+
     public static <T> FeatureTransformer replace(T find, T replace) {
         if (find instanceof String) {
             return builder().value((String) find, (String) replace).build();